@@ -1,21 +1,53 @@
 package com.chengju.customdrops;
 
+import com.chengju.customdrops.actions.ActionCompiler;
+import com.chengju.customdrops.actions.DropAction;
+import com.chengju.customdrops.drops.DropSource;
+import com.chengju.customdrops.drops.DropTable;
+import com.chengju.customdrops.events.CronExpression;
+import com.chengju.customdrops.events.Durations;
+import com.chengju.customdrops.logs.LogWriter;
+import com.chengju.customdrops.tasks.TickClock;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitScheduler;
 
 public class ConfigManager {
     // 插件主类引用
     private final JavaPlugin plugin;
-    // 当前生效的配置（支持热重载）
-    private volatile PluginConfiguration currentConfig;
+    // 当前生效的配置快照（重载时整体替换，读取方永远看到完整的配置）
+    private final AtomicReference<PluginConfiguration> currentConfig = new AtomicReference<>();
+    // 是否有正在进行的异步重载
+    private final AtomicBoolean reloading = new AtomicBoolean(false);
+    // 上一次加载的各配置节编译结果（节路径 -> 内容指纹与编译结果），重载时内容未变的节直接复用
+    private volatile Map<String, CompiledSection> compiledSections = Collections.emptyMap();
 
     public ConfigManager(JavaPlugin plugin) {
         this.plugin = plugin;
@@ -26,25 +58,228 @@ public class ConfigManager {
     // 加载配置文件（可被外部调用重载配置）
     public void loadConfig() {
         this.plugin.getLogger().info("加载配置...");
-        // 获取Bukkit配置文件对象
-        FileConfiguration config = this.plugin.getConfig();
+        // 先完整构建新的配置快照，再一次性发布
+        SectionCache cache = new SectionCache(this.compiledSections);
+        PluginConfiguration newConfig = buildConfig(this.plugin.getConfig(), cache);
+        this.compiledSections = cache.current;
+        this.currentConfig.set(newConfig);
+    }
+
+    /**
+     * 异步重载配置：在工作线程读取、解析并编译 config.yml，完成后回到主线程一次性替换配置快照。
+     * 只有内容发生变化的配置节会重新编译，其余复用上一次的编译结果。解析或编译失败时保留原配置。
+     *
+     * @param onSuccess 新配置生效后在主线程调用，参数为重新编译的配置节路径
+     * @param onFailure 重载失败时在主线程调用
+     * @return 已有重载正在进行时返回 false
+     */
+    public boolean reloadAsync(Consumer<List<String>> onSuccess, Consumer<Exception> onFailure) {
+        if (!this.reloading.compareAndSet(false, true)) {
+            return false;
+        }
+        BukkitScheduler scheduler = this.plugin.getServer().getScheduler();
+        scheduler.runTaskAsynchronously(this.plugin, () -> {
+            SectionCache cache = new SectionCache(this.compiledSections);
+            PluginConfiguration newConfig = null;
+            Exception error = null;
+            try {
+                this.plugin.getLogger().info("加载配置...");
+                newConfig = buildConfig(readConfigFile(), cache);
+            } catch (Exception e) {
+                error = e;
+            }
+            // 插件已被禁用时无法再回到主线程
+            if (!this.plugin.isEnabled()) {
+                this.reloading.set(false);
+                return;
+            }
+            PluginConfiguration result = newConfig;
+            Exception failure = error;
+            scheduler.runTask(this.plugin, () -> {
+                this.reloading.set(false);
+                if (failure != null) {
+                    onFailure.accept(failure);
+                    return;
+                }
+                this.compiledSections = cache.current;
+                this.currentConfig.set(result);
+                onSuccess.accept(cache.rebuilt);
+            });
+        });
+        return true;
+    }
 
+    // 读取并解析配置文件（可在工作线程调用，YAML语法错误会抛出异常而不是返回空配置）
+    private FileConfiguration readConfigFile() throws IOException, InvalidConfigurationException {
+        YamlConfiguration config = new YamlConfiguration();
+        config.load(new File(this.plugin.getDataFolder(), "config.yml"));
+        // 与 JavaPlugin.reloadConfig 一致，以插件内置的配置作为缺省值
+        InputStream defaults = this.plugin.getResource("config.yml");
+        if (defaults != null) {
+            config.setDefaults(YamlConfiguration.loadConfiguration(new InputStreamReader(defaults, StandardCharsets.UTF_8)));
+        }
+        return config;
+    }
+
+    // 根据配置文件构建完整的配置快照（不修改当前生效的配置）
+    private PluginConfiguration buildConfig(FileConfiguration config, SectionCache cache) {
         // 加载全局mcMMO检测开关
         boolean checkMcMMO = config.getBoolean("global.check-mcmmo", true);
         // 加载消息标题模板
         String messageTitle = config.getString("global.message.title", "开启全局概率翻倍 x%amount%");
         // 加载消息副标题模板
         String messageSubTitle = config.getString("global.message.sub-title", "您当前概率翻倍倍数：%now% (权限基础倍数: %basic% 全局倍数: %total%)");
+        // 加载自动重载设置
+        boolean autoReload = config.getBoolean("global.auto-reload.enabled", false);
+        long autoReloadDelay = Math.max(100L, config.getLong("global.auto-reload.delay", 1000L));
+        // 加载冷却设置
+        PluginConfiguration.CooldownConfig cooldowns = loadCooldownConfig(config);
+        // 加载定时倍率活动
+        List<PluginConfiguration.EventConfig> events = loadEventsConfig(config);
+        // 加载权限加成刷新间隔（秒，换算为服务器刻）
+        long bonusRefreshInterval = Math.max(0L, config.getLong("global.bonus-refresh-interval", 60L)) * 20L;
+        // 加载日志与统计设置
+        PluginConfiguration.LogConfig logs = loadLogConfig(config);
+        PluginConfiguration.StatsConfig stats = new PluginConfiguration.StatsConfig(
+                Math.max(10L, config.getLong("stats.snapshot-interval", 300L)) * 20L,
+                Math.max(1, config.getInt("stats.retention-hours", 168)));
+
+        // 加载挖矿配置（保持配置文件中的顺序）
+        Map<String, PluginConfiguration.ToolConfig> newToolConfigs = loadDigConfig(config, cache);
+        // 预先计算每种工具材质匹配的工具配置，挖矿时无需再执行正则匹配（工具配置均未变化时复用）
+        PluginConfiguration.ToolConfig[][] toolIndex = cache.combine("dig", newToolConfigs.keySet(),
+                () -> buildToolIndex(newToolConfigs));
 
-        // 准备存储工具配置的映射表
-        Map<String, PluginConfiguration.ToolConfig> newToolConfigs = new HashMap<>();
+        // 加载食用配置
+        Map<Material, DropTable<PluginConfiguration.DropConfig>> foodDrops = new EnumMap<>(Material.class);
+        DropTable<PluginConfiguration.DropConfig> globalFoodDrops = loadConsumeConfig(config, foodDrops, cache);
+        // 加载钓鱼配置
+        DropTable<PluginConfiguration.DropConfig> fishingDrops = loadFishingConfig(config, cache);
+        // 加载附魔配置
+        DropTable<PluginConfiguration.EnchantDropConfig> enchantDrops = loadEnchantConfig(config, cache);
+
+        this.plugin.getLogger().info("配置已加载! 加载了 " + newToolConfigs.size() + " 个工具配置, "
+                + foodDrops.size() + " 种特定食物和 " + globalFoodDrops.size() + " 个全局食用掉落, "
+                + fishingDrops.size() + " 个钓鱼掉落, " + enchantDrops.size() + " 个附魔掉落 (重新编译 "
+                + cache.rebuilt.size() + " 个配置节)");
+
+        // 创建新的配置对象
+        return new PluginConfiguration(
+                newToolConfigs,
+                toolIndex,
+                foodDrops,
+                globalFoodDrops,
+                fishingDrops,
+                enchantDrops,
+                messageTitle,
+                messageSubTitle,
+                checkMcMMO,
+                autoReload,
+                autoReloadDelay,
+                cooldowns,
+                events,
+                bonusRefreshInterval,
+                logs,
+                stats
+        );
+    }
+
+    // 加载日志设置（logs）
+    private PluginConfiguration.LogConfig loadLogConfig(FileConfiguration config) {
+        return new PluginConfiguration.LogConfig(
+                config.getString("logs.store", "file"),
+                Math.max(1, config.getInt("logs.writer.queue-capacity", 10000)),
+                Math.max(50L, config.getLong("logs.writer.flush-interval", 1000L)),
+                LogWriter.OverflowPolicy.parse(config.getString("logs.writer.overflow-policy"), LogWriter.OverflowPolicy.BLOCK),
+                Math.max(0L, config.getLong("logs.writer.block-timeout", 50L)),
+                config.getBoolean("logs.journal.enabled", true),
+                Math.max(0, config.getInt("logs.retention-days", 30)),
+                Math.max(0, config.getInt("logs.compress-after-days", 7)),
+                Math.min(PluginConfiguration.LogConfig.MAX_PAGE_SIZE, Math.max(1, config.getInt("logs.query.page-size", 10))),
+                Math.max(0L, config.getLong("logs.query.cache-ttl", 30L)) * 1000L);
+    }
+
+    // 加载定时倍率活动（events），无效的活动跳过并报告
+    private List<PluginConfiguration.EventConfig> loadEventsConfig(FileConfiguration config) {
+        List<PluginConfiguration.EventConfig> events = new ArrayList<>();
+        ConfigurationSection eventsSection = config.getConfigurationSection("events");
+        if (eventsSection == null) {
+            return events;
+        }
+        for (String eventName : eventsSection.getKeys(false)) {
+            ConfigurationSection eventSection = eventsSection.getConfigurationSection(eventName);
+            if (eventSection == null)
+                continue;
+
+            CronExpression start;
+            try {
+                start = CronExpression.parse(eventSection.getString("start", ""));
+            } catch (IllegalArgumentException e) {
+                this.plugin.getLogger().warning("活动 " + eventName + " 的开始时间无效: " + e.getMessage());
+                continue;
+            }
+            long duration = Durations.parse(eventSection.getString("duration", ""));
+            if (duration <= 0) {
+                this.plugin.getLogger().warning("活动 " + eventName + " 的持续时间无效 (格式如 30m、2h、1d12h)");
+                continue;
+            }
+
+            // all 对所有来源生效，单独设置的来源覆盖 all
+            Map<DropSource, Double> multipliers = new EnumMap<>(DropSource.class);
+            ConfigurationSection multipliersSection = eventSection.getConfigurationSection("multipliers");
+            if (multipliersSection != null) {
+                double all = multipliersSection.getDouble("all", 1.0D);
+                for (DropSource source : DropSource.values()) {
+                    multipliers.put(source, all);
+                }
+                for (String sourceKey : multipliersSection.getKeys(false)) {
+                    if (sourceKey.equalsIgnoreCase("all"))
+                        continue;
+                    try {
+                        multipliers.put(DropSource.valueOf(sourceKey.toUpperCase(Locale.ROOT)),
+                                multipliersSection.getDouble(sourceKey, 1.0D));
+                    } catch (IllegalArgumentException e) {
+                        this.plugin.getLogger().warning("未知的掉落来源: " + multipliersSection.getCurrentPath() + "." + sourceKey
+                                + " (可选: all, dig, fishing, consume, enchant)");
+                    }
+                }
+            }
+            events.add(new PluginConfiguration.EventConfig(eventName, start, duration, multipliers));
+        }
+        return events;
+    }
+
+    // 加载冷却设置（global.cooldown，配置中为毫秒，换算为服务器刻）
+    private PluginConfiguration.CooldownConfig loadCooldownConfig(FileConfiguration config) {
+        long grant = TickClock.toTicks(Math.max(0L, config.getLong("global.cooldown.grant", 5000L)));
+        long digInterval = TickClock.toTicks(Math.max(0L, config.getLong("global.cooldown.dig-interval", 200L)));
+        Map<DropSource, Long> sourceGrants = new EnumMap<>(DropSource.class);
+        ConfigurationSection sourcesSection = config.getConfigurationSection("global.cooldown.sources");
+        if (sourcesSection != null) {
+            for (String sourceKey : sourcesSection.getKeys(false)) {
+                try {
+                    DropSource source = DropSource.valueOf(sourceKey.toUpperCase(Locale.ROOT));
+                    sourceGrants.put(source, TickClock.toTicks(Math.max(0L, sourcesSection.getLong(sourceKey, 0L))));
+                } catch (IllegalArgumentException e) {
+                    this.plugin.getLogger().warning("未知的掉落来源: global.cooldown.sources." + sourceKey
+                            + " (可选: dig, fishing, consume, enchant)");
+                }
+            }
+        }
+        return new PluginConfiguration.CooldownConfig(grant, digInterval, sourceGrants);
+    }
+
+    // 加载挖矿（dig）配置
+    private Map<String, PluginConfiguration.ToolConfig> loadDigConfig(FileConfiguration config, SectionCache cache) {
+        // 准备存储工具配置的映射表（保持配置文件中的顺序）
+        Map<String, PluginConfiguration.ToolConfig> newToolConfigs = new LinkedHashMap<>();
         // 获取dig（挖矿）配置节
         ConfigurationSection digSection = config.getConfigurationSection("dig");
 
         // 检查dig配置是否存在
         if (digSection == null) {
             this.plugin.getLogger().warning("配置中没有找到 'dig' 部分");
-            return;
+            return newToolConfigs;
         }
 
         // 遍历所有工具配置
@@ -53,99 +288,327 @@ public class ConfigManager {
             if (toolSection == null)
                 continue;
 
-            // 创建新的工具配置对象
-            PluginConfiguration.ToolConfig toolConfig = new PluginConfiguration.ToolConfig();
-            // 获取工具匹配正则表达式
-            String patternStr = toolSection.getString("pattern");
+            PluginConfiguration.ToolConfig toolConfig = cache.compile("dig." + toolKey, toolSection,
+                    section -> loadToolConfig(toolKey, section));
+            if (toolConfig != null) {
+                // 将工具配置存入映射表
+                newToolConfigs.put(toolKey, toolConfig);
+            }
+        }
+        return newToolConfigs;
+    }
+
+    // 加载单个工具配置，配置无效时返回 null
+    private PluginConfiguration.ToolConfig loadToolConfig(String toolKey, ConfigurationSection toolSection) {
+        // 获取工具匹配正则表达式
+        String patternStr = toolSection.getString("pattern");
+
+        // 正则表达式校验
+        if (patternStr == null || patternStr.isEmpty()) {
+            this.plugin.getLogger().warning("工具 " + toolKey + " 缺少 pattern 配置");
+            return null;
+        }
+        Pattern pattern;
+        try {
+            // 编译正则表达式
+            pattern = Pattern.compile(patternStr);
+        } catch (Exception e) {
+            this.plugin.getLogger().warning("无效的正则表达式: " + patternStr);
+            return null;
+        }
+
+        // 加载世界高度限制配置
+        Map<String, Integer> yMap = new HashMap<>();
+        ConfigurationSection ySection = toolSection.getConfigurationSection("y");
+        if (ySection != null) {
+            for (String worldName : ySection.getKeys(false)) {
+                // 存储世界名->最大高度的映射
+                yMap.put(worldName, Integer.valueOf(ySection.getInt(worldName)));
+            }
+        }
+
+        // 加载方块掉落配置
+        Map<Material, DropTable<PluginConfiguration.DropConfig>> blockDrops = new EnumMap<>(Material.class);
+        ConfigurationSection blockSection = toolSection.getConfigurationSection("dig-type");
+        if (blockSection != null) {
+            for (String blockType : blockSection.getKeys(false)) {
+                // 将字符串转换为方块材质
+                Material material = Material.matchMaterial(blockType);
+                if (material == null) {
+                    this.plugin.getLogger().warning("无效的方块类型: " + blockType);
+                    continue;
+                }
+
+                // 获取该方块类型的掉落配置节
+                ConfigurationSection dropsSection = blockSection.getConfigurationSection(blockType);
+                if (dropsSection == null)
+                    continue;
+
+                // 编译为掉落表（一次随机数决定掉落结果）
+                blockDrops.put(material, loadDropTable(dropsSection));
+            }
+        }
+
+        return new PluginConfiguration.ToolConfig(pattern, yMap, blockDrops);
+    }
+
+    // 加载食用（consume）配置，返回通配符*的掉落表
+    private DropTable<PluginConfiguration.DropConfig> loadConsumeConfig(FileConfiguration config,
+            Map<Material, DropTable<PluginConfiguration.DropConfig>> foodDrops, SectionCache cache) {
+        ConfigurationSection consumeSection = config.getConfigurationSection("consume");
+        if (consumeSection == null) {
+            this.plugin.getLogger().warning("配置中没有找到 'consume' 部分");
+            return DropTable.empty();
+        }
+
+        DropTable<PluginConfiguration.DropConfig> globalDrops = DropTable.empty();
+        for (String foodKey : consumeSection.getKeys(false)) {
+            ConfigurationSection dropsSection = consumeSection.getConfigurationSection(foodKey);
+            if (dropsSection == null)
+                continue;
+
+            // 处理通配符配置
+            if ("*".equals(foodKey)) {
+                globalDrops = cache.compile("consume.*", dropsSection, this::loadDropTable);
+                continue;
+            }
 
-            // 正则表达式校验
-            if (patternStr == null || patternStr.isEmpty()) {
-                this.plugin.getLogger().warning("工具 " + toolKey + " 缺少 pattern 配置");
+            // 处理特定食物配置
+            Material foodType = Material.matchMaterial(foodKey);
+            if (foodType == null) {
+                this.plugin.getLogger().warning("无效的食物类型: " + foodKey);
                 continue;
             }
-            try {
-                // 编译正则表达式
-                toolConfig.pattern = Pattern.compile(patternStr);
-            } catch (Exception e) {
-                this.plugin.getLogger().warning("无效的正则表达式: " + patternStr);
+            foodDrops.put(foodType, cache.compile("consume." + foodKey, dropsSection, this::loadDropTable));
+        }
+        return globalDrops;
+    }
+
+    // 加载钓鱼（fishing）配置
+    private DropTable<PluginConfiguration.DropConfig> loadFishingConfig(FileConfiguration config, SectionCache cache) {
+        ConfigurationSection fishingSection = config.getConfigurationSection("fishing");
+        if (fishingSection == null) {
+            this.plugin.getLogger().warning("配置中没有找到 'fishing' 部分");
+            return DropTable.empty();
+        }
+        return cache.compile("fishing", fishingSection, this::loadDropTable);
+    }
+
+    // 加载附魔（enchant）配置
+    private DropTable<PluginConfiguration.EnchantDropConfig> loadEnchantConfig(FileConfiguration config, SectionCache cache) {
+        ConfigurationSection enchantSection = config.getConfigurationSection("enchant");
+        if (enchantSection == null) {
+            this.plugin.getLogger().warning("配置中没有找到 'enchant' 部分");
+            return DropTable.empty();
+        }
+
+        List<PluginConfiguration.EnchantDropConfig> drops = new ArrayList<>();
+        List<String> enchantKeys = new ArrayList<>();
+        for (String enchantKey : enchantSection.getKeys(false)) {
+            ConfigurationSection dropSection = enchantSection.getConfigurationSection(enchantKey);
+            if (dropSection == null)
                 continue;
+
+            PluginConfiguration.EnchantDropConfig dropConfig = cache.compile("enchant." + enchantKey, dropSection,
+                    section -> loadEnchantDrop(enchantKey, section));
+            if (dropConfig != null) {
+                drops.add(dropConfig);
+                enchantKeys.add(enchantKey);
             }
+        }
+        // 所有附魔掉落项均未变化时复用原掉落表
+        return cache.combine("enchant", enchantKeys, () -> DropTable.of(drops, drop -> drop.chance));
+    }
 
-            // 加载世界高度限制配置
-            ConfigurationSection ySection = toolSection.getConfigurationSection("y");
-            if (ySection != null) {
-                for (String worldName : ySection.getKeys(false)) {
-                    // 存储世界名->最大高度的映射
-                    toolConfig.yMap.put(worldName, Integer.valueOf(ySection.getInt(worldName)));
-                }
+    // 加载单个附魔掉落配置，正则无效时返回 null
+    private PluginConfiguration.EnchantDropConfig loadEnchantDrop(String enchantKey, ConfigurationSection dropSection) {
+        Pattern itemPattern = null;
+        Pattern enchantPattern = null;
+        try {
+            // 加载物品匹配正则（可为空）
+            String itemPatternStr = dropSection.getString("item-pattern", "");
+            if (!itemPatternStr.isEmpty()) {
+                itemPattern = Pattern.compile(itemPatternStr);
             }
+            // 加载附魔匹配正则（可为空）
+            String enchantPatternStr = dropSection.getString("enchant-pattern", "");
+            if (!enchantPatternStr.isEmpty()) {
+                enchantPattern = Pattern.compile(enchantPatternStr);
+            }
+        } catch (Exception e) {
+            this.plugin.getLogger().warning("附魔配置 " + enchantKey + " 的正则表达式无效: " + e.getMessage());
+            return null;
+        }
 
-            // 加载方块掉落配置
-            ConfigurationSection blockSection = toolSection.getConfigurationSection("dig-type");
-            if (blockSection != null) {
-                for (String blockType : blockSection.getKeys(false)) {
-                    // 将字符串转换为方块材质
-                    Material material = Material.matchMaterial(blockType);
-                    if (material == null) {
-                        this.plugin.getLogger().warning("无效的方块类型: " + blockType);
-                        continue;
-                    }
+        // 加载生效的附魔等级范围
+        int minLevel = dropSection.getInt("min-level", 1);
+        int maxLevel = dropSection.getInt("max-level", 30);
 
-                    // 获取该方块类型的掉落配置节
-                    ConfigurationSection dropsSection = blockSection.getConfigurationSection(blockType);
-                    if (dropsSection == null)
-                        continue;
+        return new PluginConfiguration.EnchantDropConfig(enchantKey, loadChance(dropSection),
+                loadActions(dropSection), loadCooldown(dropSection), itemPattern, enchantPattern, minLevel, maxLevel);
+    }
 
-                    // 遍历所有掉落配置
-                    for (String dropName : dropsSection.getKeys(false)) {
-                        ConfigurationSection dropSection = dropsSection.getConfigurationSection(dropName);
-                        if (dropSection == null)
-                            continue;
-
-                        // 创建掉落配置对象
-                        PluginConfiguration.DropConfig dropConfig = new PluginConfiguration.DropConfig();
-                        // 获取基础概率
-                        dropConfig.chance = dropSection.getDouble("chance", 0.0D) / 100;
-                        // 获取动作指令列表
-                        dropConfig.actions = new ArrayList<>(dropSection.getStringList("string-action"));
-
-                        // 存储到工具配置中（线程安全）
-                        toolConfig.blockDrops
-                                .computeIfAbsent(material, k -> new ConcurrentHashMap<>())
-                                .put(dropName, dropConfig);
-                    }
+    // 将一组掉落配置（掉落物名称 -> chance/string-action）编译为掉落表（按配置顺序）
+    private DropTable<PluginConfiguration.DropConfig> loadDropTable(ConfigurationSection dropsSection) {
+        List<PluginConfiguration.DropConfig> drops = new ArrayList<>();
+        // 遍历所有掉落配置
+        for (String dropName : dropsSection.getKeys(false)) {
+            ConfigurationSection dropSection = dropsSection.getConfigurationSection(dropName);
+            if (dropSection == null)
+                continue;
+
+            drops.add(new PluginConfiguration.DropConfig(dropName, loadChance(dropSection), loadActions(dropSection),
+                    loadCooldown(dropSection)));
+        }
+        return DropTable.of(drops, drop -> drop.chance);
+    }
+
+    // 获取基础概率（配置文件中的百分比值转换为小数）
+    private double loadChance(ConfigurationSection dropSection) {
+        return dropSection.getDouble("chance", 0.0D) / 100;
+    }
+
+    // 获取掉落物冷却（配置中为毫秒，换算为服务器刻），未设置时为0
+    private long loadCooldown(ConfigurationSection dropSection) {
+        return TickClock.toTicks(Math.max(0L, dropSection.getLong("cooldown", 0L)));
+    }
+
+    // 编译动作指令列表（无效动作在此报告）
+    private List<DropAction> loadActions(ConfigurationSection dropSection) {
+        return ActionCompiler.compile(dropSection.getStringList("string-action"),
+                this.plugin.getLogger(), dropSection.getCurrentPath());
+    }
+
+    // 构建 工具材质 -> 匹配的工具配置 查找表（按Material序号索引，保持配置顺序）
+    private static PluginConfiguration.ToolConfig[][] buildToolIndex(Map<String, PluginConfiguration.ToolConfig> toolConfigs) {
+        Material[] materials = Material.values();
+        PluginConfiguration.ToolConfig[][] index = new PluginConfiguration.ToolConfig[materials.length][];
+        List<PluginConfiguration.ToolConfig> matched = new ArrayList<>();
+
+        for (Material material : materials) {
+            matched.clear();
+            String materialName = material.name();
+            // 每个正则只在加载时对每种材质匹配一次
+            for (PluginConfiguration.ToolConfig toolConfig : toolConfigs.values()) {
+                if (toolConfig.pattern.matcher(materialName).matches()) {
+                    matched.add(toolConfig);
                 }
             }
+            index[material.ordinal()] = matched.isEmpty()
+                    ? PluginConfiguration.NO_TOOL_CONFIGS
+                    : matched.toArray(new PluginConfiguration.ToolConfig[0]);
+        }
+        return index;
+    }
 
-            // 将工具配置存入映射表
-            newToolConfigs.put(toolKey, toolConfig);
+    // 计算配置节的内容指纹（按配置顺序拼接所有键值后取 SHA-256）
+    private static String fingerprint(ConfigurationSection section) {
+        StringBuilder content = new StringBuilder();
+        for (Map.Entry<String, Object> entry : section.getValues(true).entrySet()) {
+            content.append(entry.getKey()).append('\u0000');
+            // 子节本身不含值，其内容会以完整路径单独出现
+            if (!(entry.getValue() instanceof ConfigurationSection)) {
+                appendValue(content, entry.getValue());
+            }
+            content.append('\n');
         }
+        return sha256(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
 
-        // 保留当前的全局倍率（热重载时不重置）
-        double multiplier = (this.currentConfig != null) ? this.currentConfig.getGlobalMultiplier() : 1.0D;
-        // 创建新的配置对象
-        PluginConfiguration newConfig = new PluginConfiguration(
-                newToolConfigs,
-                multiplier,
-                messageTitle,
-                messageSubTitle,
-                checkMcMMO
-        );
+    // 追加值的规范表示（带类型，列表逐项分隔，避免不同内容拼接后相同）
+    private static void appendValue(StringBuilder content, Object value) {
+        if (value instanceof List) {
+            content.append('[');
+            for (Object element : (List<?>) value) {
+                appendValue(content, element);
+                content.append('\u0001');
+            }
+            content.append(']');
+            return;
+        }
+        content.append(value == null ? "null" : value.getClass().getSimpleName())
+                .append(':').append(value);
+    }
 
-        // 更新当前配置
-        this.currentConfig = newConfig;
+    // 计算数据的 SHA-256 十六进制摘要
+    public static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // 所有 Java 平台都必须支持 SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
 
-        this.plugin.getLogger().info("配置已加载! 加载了 " + newToolConfigs.size() + " 个工具配置");
+    // 获取当前生效的配置快照
+    public PluginConfiguration getCurrentConfig() {
+        return this.currentConfig.get();
     }
 
-    // 确保配置完整性（外部调用）
-    public void ensureConfigComplete() {
-        this.plugin.getLogger().info("确保配置完整...");
-        loadConfig(); // 重新加载配置
+    // 已编译的配置节（内容指纹 + 编译结果）
+    private static final class CompiledSection {
+        final String fingerprint;
+        final Object compiled;
+
+        CompiledSection(String fingerprint, Object compiled) {
+            this.fingerprint = fingerprint;
+            this.compiled = compiled;
+        }
     }
 
-    // 获取当前生效的配置
-    public PluginConfiguration getCurrentConfig() {
-        return this.currentConfig;
+    // 一次配置构建过程中的编译缓存：内容指纹未变的配置节直接复用上一次的编译结果
+    private static final class SectionCache {
+        // 上一次加载的编译结果（只读）
+        private final Map<String, CompiledSection> previous;
+        // 本次加载的编译结果（构建成功后替换 previous）
+        final Map<String, CompiledSection> current = new HashMap<>();
+        // 本次重新编译的配置节路径（按配置顺序）
+        final List<String> rebuilt = new ArrayList<>();
+
+        SectionCache(Map<String, CompiledSection> previous) {
+            this.previous = previous;
+        }
+
+        // 编译配置节（内容未变时复用）。编译结果为 null 表示配置无效，不缓存以便下次重新报告
+        <T> T compile(String path, ConfigurationSection section, Function<ConfigurationSection, T> compiler) {
+            String fingerprint = fingerprint(section);
+            T compiled = cached(path, fingerprint);
+            if (compiled == null) {
+                compiled = compiler.apply(section);
+                this.rebuilt.add(path);
+            }
+            if (compiled != null) {
+                this.current.put(path, new CompiledSection(fingerprint, compiled));
+            }
+            return compiled;
+        }
+
+        // 由多个已编译配置节（path = prefix.key）组合而成的结果，所有组成部分及其顺序均未变时复用
+        <T> T combine(String prefix, Iterable<String> keys, Supplier<T> builder) {
+            StringBuilder combined = new StringBuilder();
+            for (String key : keys) {
+                combined.append(key).append('\u0000')
+                        .append(this.current.get(prefix + "." + key).fingerprint).append('\n');
+            }
+            String fingerprint = combined.toString();
+            T compiled = cached(prefix, fingerprint);
+            if (compiled == null) {
+                compiled = builder.get();
+            }
+            this.current.put(prefix, new CompiledSection(fingerprint, compiled));
+            return compiled;
+        }
+
+        // 获取指纹相同的上一次编译结果，没有则返回 null
+        @SuppressWarnings("unchecked")
+        private <T> T cached(String path, String fingerprint) {
+            CompiledSection cached = this.previous.get(path);
+            return cached != null && cached.fingerprint.equals(fingerprint) ? (T) cached.compiled : null;
+        }
     }
-}
\ No newline at end of file
+}
@@ -3,18 +3,25 @@ package com.chengju.customdrops;
 import com.chengju.customdrops.commands.BonusCommand;
 import com.chengju.customdrops.commands.LogCommand;
 import com.chengju.customdrops.commands.MainCommandExecutor;
+import com.chengju.customdrops.commands.MultiplierCommand;
+import com.chengju.customdrops.drops.DropEngine;
+import com.chengju.customdrops.drops.PlayerBonusCache;
+import com.chengju.customdrops.events.EventScheduler;
 import com.chengju.customdrops.listeners.BlockBreakListener;
 import com.chengju.customdrops.listeners.EnchantListener;
 import com.chengju.customdrops.listeners.FishingListener;
 import com.chengju.customdrops.listeners.FoodConsumeListener;
 import com.chengju.customdrops.logs.PlayerLogManager;
+import com.chengju.customdrops.stats.DropStatistics;
+import com.chengju.customdrops.tasks.ConfigWatcher;
 import com.chengju.customdrops.tasks.LogCleanupTask;
+import com.chengju.customdrops.tasks.StatsSnapshotTask;
+import com.chengju.customdrops.tasks.TickClock;
 
-import java.util.Map;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -24,9 +31,9 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.command.PluginCommand;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Listener;
-import org.bukkit.permissions.PermissionAttachmentInfo;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
 
 public class CustomDropsPlugin
         extends JavaPlugin {
@@ -34,45 +41,33 @@ public class CustomDropsPlugin
     private PlayerLogManager logManager;
     // 配置管理器（处理插件配置）
     private ConfigManager configManager;
+    // 掉落引擎（倍率、冷却、概率判定与动作执行）
+    private DropEngine dropEngine;
+    // 掉落统计（按来源/掉落物/世界/小时计数）
+    private DropStatistics dropStatistics;
+    // 服务器刻时钟（冷却计时）
+    private TickClock tickClock;
+    // 定时倍率活动调度器
+    private EventScheduler eventScheduler;
     // 各功能监听器
     private BlockBreakListener blockBreakListener;
     private FoodConsumeListener foodListener;
     private FishingListener fishingListener;
-    // 防刷冷却时间（毫秒）
-    private static final long COOLDOWN_TIME = 5000; // 5秒
-    // 玩家冷却时间记录
-    private final Map<UUID, Long> cooldownMap = new ConcurrentHashMap<>();
     private EnchantListener enchantListener;
 
-    // 玩家倍率缓存（UUID -> 倍率值），提升权限检查效率
-    private final Map<UUID, Double> bonusCache = new ConcurrentHashMap<>();
+    // 配置文件监视器（仅在开启自动重载时存在）
+    private ConfigWatcher configWatcher;
 
-    /**
-     * 检查玩家是否在冷却时间内
-     * @param player 玩家对象
-     * @return 是否在冷却中
-     */
-    public boolean isOnCooldown(Player player) {
-        UUID playerId = player.getUniqueId();
-        long currentTime = System.currentTimeMillis();
-        Long lastTime = cooldownMap.get(playerId);
-
-        // 如果上次触发时间为空，不在冷却中
-        if (lastTime == null) {
-            return false;
-        }
+    // 定期重新计算权限加成的任务（间隔为0时不存在）及其使用的配置
+    private BukkitTask bonusRefreshTask;
+    private long bonusRefreshInterval = -1L;
+    // 定期保存统计快照的任务及其使用的配置
+    private BukkitTask statsSnapshotTask;
+    private PluginConfiguration.StatsConfig statsConfig;
 
-        // 检查是否在冷却时间内
-        return (currentTime - lastTime) < COOLDOWN_TIME;
-    }
+    // 在线玩家的权限倍率（进入时预先计算，退出时移除）
+    private final PlayerBonusCache playerBonusCache = new PlayerBonusCache(this::onPlayerBonusChanged);
 
-    /**
-     * 设置玩家冷却时间
-     * @param player 玩家对象
-     */
-    public void setCooldown(Player player) {
-        cooldownMap.put(player.getUniqueId(), System.currentTimeMillis());
-    }
     // 插件加载阶段
     public void onLoad() {
         // 初始化日志管理器
@@ -84,14 +79,29 @@ public class CustomDropsPlugin
         // 保存默认配置（如果不存在）
         saveDefaultConfig();
 
-        // 初始化配置管理器并确保配置完整
+        // 初始化配置管理器（构造时加载配置）
         this.configManager = new ConfigManager(this);
-        this.configManager.ensureConfigComplete();
+
+        // 初始化掉落统计并读取上次保存的快照
+        initializeStatistics();
+
+        // 启动服务器刻时钟（冷却计时）
+        this.tickClock = new TickClock();
+        this.tickClock.runTaskTimer(this, 1L, 1L);
+
+        // 初始化掉落引擎
+        this.dropEngine = new DropEngine(this);
+
+        // 启动定时倍率活动调度
+        this.eventScheduler = new EventScheduler(this);
+        this.eventScheduler.start();
 
         // 确保日志管理器已初始化
         if (this.logManager == null) {
             this.logManager = new PlayerLogManager(this);
         }
+        // 启动日志异步写入线程
+        this.logManager.start();
 
         // 注册所有事件监听器
         initializeListeners();
@@ -102,6 +112,12 @@ public class CustomDropsPlugin
         // 启动自动清理日志任务（每24小时一次）
         startCleanupTask();
 
+        // 按配置启动配置文件自动重载
+        updateConfigWatcher();
+
+        // 按配置启动权限加成刷新与统计快照任务
+        updateTimers();
+
         getLogger().info("CustomDropsPlugin 已启用!");
     }
 
@@ -122,6 +138,56 @@ public class CustomDropsPlugin
         // 附魔事件监听
         this.enchantListener = new EnchantListener(this);
         getServer().getPluginManager().registerEvents(this.enchantListener, this);
+
+        // 冷却服务（玩家进入/退出时恢复/移除冷却）
+        getServer().getPluginManager().registerEvents(this.dropEngine.getCooldowns(), this);
+
+        // 分层倍率（玩家退出时清除缓存）
+        getServer().getPluginManager().registerEvents(this.dropEngine.getMultipliers(), this);
+
+        // 玩家权限倍率（进入时计算，退出时移除），由定时任务重新计算以发现权限变化
+        getServer().getPluginManager().registerEvents(this.playerBonusCache, this);
+    }
+
+    // 初始化掉落统计并读取上次保存的快照（定期保存快照的任务由 updateTimers 启动）
+    private void initializeStatistics() {
+        this.dropStatistics = new DropStatistics(new File(getDataFolder(), "stats.dat"));
+        try {
+            this.dropStatistics.load();
+        } catch (IOException e) {
+            getLogger().warning("读取掉落统计失败，从零开始统计: " + e.getMessage());
+        }
+    }
+
+    // 按当前配置启动或重启定时任务（设置未变化的任务保持运行）
+    private void updateTimers() {
+        PluginConfiguration config = this.configManager.getCurrentConfig();
+
+        // 权限加成刷新
+        long bonusInterval = config.getBonusRefreshInterval();
+        if (bonusInterval != this.bonusRefreshInterval) {
+            if (this.bonusRefreshTask != null) {
+                this.bonusRefreshTask.cancel();
+                this.bonusRefreshTask = null;
+            }
+            if (bonusInterval > 0) {
+                this.bonusRefreshTask = getServer().getScheduler().runTaskTimer(this,
+                        () -> this.playerBonusCache.refreshAll(getServer().getOnlinePlayers()), bonusInterval, bonusInterval);
+            }
+            this.bonusRefreshInterval = bonusInterval;
+        }
+
+        // 统计快照
+        PluginConfiguration.StatsConfig stats = config.getStats();
+        if (this.statsConfig == null || stats.snapshotInterval != this.statsConfig.snapshotInterval
+                || stats.retentionHours != this.statsConfig.retentionHours) {
+            if (this.statsSnapshotTask != null) {
+                this.statsSnapshotTask.cancel();
+            }
+            this.statsSnapshotTask = new StatsSnapshotTask(this, this.dropStatistics, stats)
+                    .runTaskTimerAsynchronously(this, stats.snapshotInterval, stats.snapshotInterval);
+            this.statsConfig = stats;
+        }
     }
 
     // 注册所有命令处理器
@@ -136,10 +202,10 @@ public class CustomDropsPlugin
             cdReloadCmd.setExecutor(this); // 使用插件自身作为执行器
         }
 
-        // 注册/ip命令（设置全局倍率）
+        // 注册/ip命令（设置倍率和限时加成）
         PluginCommand ipCmd = getCommand("ip");
         if (ipCmd != null) {
-            ipCmd.setExecutor(this);
+            ipCmd.setExecutor(new MultiplierCommand(this));
         }
 
         // 注册/mylogs命令（查看个人日志）
@@ -179,8 +245,14 @@ public class CustomDropsPlugin
     public void onDisable() {
         getLogger().info("===== 插件禁用开始 =====");
 
+        // 停止配置文件监视
+        if (this.configWatcher != null) {
+            this.configWatcher.stop();
+            this.configWatcher = null;
+        }
+
         // 清空倍率缓存
-        this.bonusCache.clear();
+        this.playerBonusCache.clear();
 
         // 解除监听器引用，便于垃圾回收
         this.blockBreakListener = null;
@@ -188,7 +260,34 @@ public class CustomDropsPlugin
         this.fishingListener = null;
         this.enchantListener = null;
 
-        // 解除管理器引用
+        // 写完剩余日志并停止写入线程
+        if (this.logManager != null) {
+            this.logManager.close();
+        }
+
+        // 停止定时快照后保存最后一次统计快照（正在执行的异步快照由 save 的同步锁串行化）
+        if (this.statsSnapshotTask != null) {
+            this.statsSnapshotTask.cancel();
+            this.statsSnapshotTask = null;
+        }
+        if (this.dropStatistics != null && this.configManager != null) {
+            new StatsSnapshotTask(this, this.dropStatistics, this.configManager.getCurrentConfig().getStats()).run();
+        }
+
+        // 停止定时活动调度
+        if (this.eventScheduler != null) {
+            this.eventScheduler.stop();
+            this.eventScheduler = null;
+        }
+
+        // 清空冷却、停止倍率到期任务并解除管理器引用
+        if (this.dropEngine != null) {
+            this.dropEngine.getCooldowns().clear();
+            this.dropEngine.getMultipliers().close();
+        }
+        this.dropEngine = null;
+        this.tickClock = null;
+        this.dropStatistics = null;
         this.logManager = null;
         this.configManager = null;
 
@@ -205,172 +304,167 @@ public class CustomDropsPlugin
         return this.configManager;
     }
 
-    // 获取玩家倍率（带缓存机制）
+    // 获取掉落引擎
+    public DropEngine getDropEngine() {
+        return this.dropEngine;
+    }
+
+    // 获取掉落统计
+    public DropStatistics getDropStatistics() {
+        return this.dropStatistics;
+    }
+
+    // 获取定时倍率活动调度器
+    public EventScheduler getEventScheduler() {
+        return this.eventScheduler;
+    }
+
+    // 获取服务器刻时钟
+    public TickClock getTickClock() {
+        return this.tickClock;
+    }
+
+    // 获取玩家权限倍率（玩家进入时预先计算）
     public double getPlayerBonusMultiplier(Player player) {
-        UUID playerId = player.getUniqueId();
+        return this.playerBonusCache.get(player);
+    }
 
-        // 优先从缓存读取
-        if (this.bonusCache.containsKey(playerId)) {
-            return this.bonusCache.get(playerId);
-        }
+    // 重新计算特定玩家的权限倍率（权限变更时调用）
+    public void refreshPlayerBonus(Player player) {
+        this.playerBonusCache.refresh(player);
+    }
 
-        // 计算倍率并存入缓存
-        double multiplier = calculateBonusMultiplier(player);
-        this.bonusCache.put(playerId, multiplier);
-        return multiplier;
+    // 玩家权限倍率变化后，使其缓存的实际倍率失效
+    private void onPlayerBonusChanged(UUID playerId) {
+        if (this.dropEngine != null) {
+            this.dropEngine.getMultipliers().invalidate(playerId);
+        }
     }
 
-    // 计算玩家权限倍率
-    private double calculateBonusMultiplier(Player player) {
-        double maxMultiplier = 0.0D; // 默认倍率
-        Pattern pattern = Pattern.compile("cu\\.drop\\.(\\d+)"); // 权限格式：cu.drop.XXX
-
-        // 遍历玩家所有有效权限
-        for (PermissionAttachmentInfo permissionInfo : player.getEffectivePermissions()) {
-            String permission = permissionInfo.getPermission();
-            Matcher matcher = pattern.matcher(permission);
-            if (matcher.matches()) {
-                try {
-                    int bonusPercent = Integer.parseInt(matcher.group(1)); // 提取百分比值
-                    double multiplier = bonusPercent / 100.0D; // 转换为倍率
-                    if (multiplier > maxMultiplier) {
-                        maxMultiplier = multiplier; // 保留最高倍率
-                    }
-                } catch (NumberFormatException e) {
-                    // 忽略格式错误的权限
-                }
-            }
+    /**
+     * 向全服广播全局倍率变化（使用 global.message 中的标题模板）
+     * @param multiplier 新的全局倍率
+     */
+    public void broadcastMultiplier(double multiplier) {
+        if (this.configManager == null) {
+            return;
         }
+        PluginConfiguration config = this.configManager.getCurrentConfig();
 
-        return maxMultiplier;
-    }
+        // 构建标题消息
+        String title = config.getMessageTitle().replace("%amount%", String.valueOf(multiplier));
+
+        // 构建副标题消息（其中%basic%暂时设为1.0）
+        String subTitle = config.getMessageSubTitle()
+                .replace("%now%", String.valueOf(multiplier))
+                .replace("%basic%", "1.0")
+                .replace("%total%", String.valueOf(multiplier));
 
-    // 清除特定玩家的倍率缓存（权限变更时调用）
-    public void clearBonusCache(UUID playerId) {
-        this.bonusCache.remove(playerId);
+        // 广播消息
+        Bukkit.broadcastMessage(ChatColor.translateAlternateColorCodes('&', title));
+        Bukkit.broadcastMessage(ChatColor.translateAlternateColorCodes('&', subTitle));
+        getLogger().info("全局倍率变更消息已广播");
     }
 
-    // 命令处理主入口（处理/cdreload和/ip命令）
+    // 命令处理主入口（处理/cdreload命令）
     public boolean onCommand(CommandSender sender, Command cmd, String label, String[] args) {
         if (cmd.getName().equalsIgnoreCase("cdreload")) {
             return handleReloadCommand(sender);
         }
-        if (cmd.getName().equalsIgnoreCase("ip")) {
-            return handleIpCommand(sender, args);
-        }
         return false;
     }
 
     // 处理/cdreload命令（配置重载）
     private boolean handleReloadCommand(CommandSender sender) {
-        try {
-            getLogger().info("开始重载配置...");
+        if (!reload(sender)) {
+            sender.sendMessage(ChatColor.YELLOW + "配置正在重载中，请稍后再试");
+        }
+        return true;
+    }
 
-            // 重新加载配置文件
-            reloadConfig();
-            getLogger().info("配置文件已重新加载");
+    /**
+     * 开始异步重载配置，结果发送给 sender
+     * @return 已有重载正在进行时返回 false
+     */
+    private boolean reload(CommandSender sender) {
+        getLogger().info("开始重载配置...");
 
-            // 重新初始化配置管理器
-            this.configManager = new ConfigManager(this);
-            this.configManager.ensureConfigComplete();
-            getLogger().info("配置管理器已重新初始化");
+        // 在工作线程解析并编译配置，主线程只负责替换快照
+        boolean started = this.configManager.reloadAsync(rebuilt -> {
+            // 只有内容变化的配置节被重新编译
+            String rebuiltSections = rebuilt.isEmpty() ? "无" : String.join(", ", rebuilt);
+            getLogger().info("配置快照已替换, 重新编译的配置节: " + rebuiltSections);
 
-            // 重载各监听器的配置
+            // 重新设置挖矿监听器的mcMMO集成（各来源的掉落表已由配置管理器统一加载）
             if (this.blockBreakListener != null) {
                 this.blockBreakListener.reloadConfiguration();
                 getLogger().info("方块破坏监听器配置已重载");
             }
-            if (this.foodListener != null) {
-                this.foodListener.loadFoodConfig();
-                getLogger().info("食物消耗监听器配置已重载");
-            }
-            if (this.fishingListener != null) {
-                this.fishingListener.loadFishingConfig();
-                getLogger().info("钓鱼监听器配置已重载");
-            }
-            if (this.enchantListener != null) {
-                this.enchantListener.loadEnchantConfig();
-                getLogger().info("附魔监听器配置已重载");
-            }
 
-            // 清空玩家倍率缓存
-            this.bonusCache.clear();
-            getLogger().info("加成缓存已清除");
+            // 重新计算在线玩家的权限倍率
+            int changed = this.playerBonusCache.refreshAll(getServer().getOnlinePlayers());
+            getLogger().info("已重新计算玩家加成, " + changed + " 名玩家的加成发生变化");
+
+            // 定时活动可能已变化，重新调度
+            this.eventScheduler.start();
+
+            // 自动重载设置与定时任务间隔可能已变化
+            updateConfigWatcher();
+            updateTimers();
+
+            // 存储后端、写入队列与发放日志只在启动时生效
+            PluginConfiguration.LogConfig startupLogs = this.logManager.getStartupConfig();
+            if (startupLogs != null) {
+                List<String> restartRequired = startupLogs.restartRequired(this.configManager.getCurrentConfig().getLogs());
+                if (!restartRequired.isEmpty()) {
+                    String paths = String.join(", ", restartRequired);
+                    getLogger().warning("以下设置需要重启服务器才能生效: " + paths);
+                    sender.sendMessage(ChatColor.YELLOW + "以下设置需要重启服务器才能生效: " + paths);
+                }
+            }
 
             // 通知发送者
-            sender.sendMessage(ChatColor.GREEN + "配置已重新加载!");
+            sender.sendMessage(ChatColor.GREEN + "配置已重新加载! 重新编译的配置节(" + rebuilt.size() + "): "
+                    + ChatColor.WHITE + rebuiltSections);
             getLogger().info("配置重载完成");
-            return true;
-        } catch (Exception e) {
+        }, e -> {
+            // 原配置保持生效
             getLogger().severe("重载配置时发生错误: " + e.getMessage());
             e.printStackTrace();
-            sender.sendMessage(ChatColor.RED + "重载配置失败: " + e.getMessage());
-            return false;
+            sender.sendMessage(ChatColor.RED + "重载配置失败，仍使用原配置: " + e.getMessage());
+        });
+
+        if (!started) {
+            getLogger().info("已有重载正在进行");
         }
+        return started;
     }
 
-    // 处理/ip命令（设置全局倍率）
-    private boolean handleIpCommand(CommandSender sender, String[] args) {
-        // 参数检查
-        if (args.length < 1) {
-            sender.sendMessage(ChatColor.RED + "用法: /ip <倍率>");
-            return true;
+    // 根据当前配置启动、重启或停止配置文件监视器
+    private void updateConfigWatcher() {
+        PluginConfiguration config = this.configManager.getCurrentConfig();
+        if (this.configWatcher != null) {
+            if (config.isAutoReload() && this.configWatcher.getDelay() == config.getAutoReloadDelay()) {
+                return;
+            }
+            this.configWatcher.stop();
+            this.configWatcher = null;
+        }
+        if (!config.isAutoReload()) {
+            return;
         }
 
+        // 内容变化后走与 /cdreload 相同的重载流程，结果发送到控制台；已有重载正在进行时由监视器稍后重试
+        ConfigWatcher watcher = new ConfigWatcher(this, config.getAutoReloadDelay(), () -> {
+            getLogger().info("检测到 config.yml 内容变化，自动重载配置");
+            return reload(Bukkit.getConsoleSender());
+        });
         try {
-            // 解析倍率值
-            double multiplier = Double.parseDouble(args[0]);
-            getLogger().info("设置全局倍率为: " + multiplier);
-
-            // 更新各监听器的全局倍率
-            if (this.blockBreakListener != null) {
-                this.blockBreakListener.updateGlobalMultiplier(multiplier);
-                getLogger().info("方块破坏监听器倍率已更新");
-            }
-            if (this.foodListener != null) {
-                this.foodListener.updateGlobalMultiplier(multiplier);
-                getLogger().info("食物消耗监听器倍率已更新");
-            }
-            if (this.fishingListener != null) {
-                this.fishingListener.updateGlobalMultiplier(multiplier);
-                getLogger().info("钓鱼监听器倍率已更新");
-            }
-            if (this.enchantListener != null) {
-                this.enchantListener.updateGlobalMultiplier(multiplier);
-                getLogger().info("附魔监听器倍率已更新");
-            }
-
-            // 显示变更通知
-            if (this.configManager != null) {
-                PluginConfiguration config = this.configManager.getCurrentConfig();
-
-                // 构建标题消息
-                String title = config.getMessageTitle().replace("%amount%", String.valueOf(multiplier));
-
-                // 构建副标题消息（其中%basic%暂时设为1.0）
-                String subTitle = config.getMessageSubTitle()
-                        .replace("%now%", String.valueOf(multiplier))
-                        .replace("%basic%", "1.0")
-                        .replace("%total%", String.valueOf(multiplier));
-
-                // 广播消息
-                Bukkit.broadcastMessage(ChatColor.translateAlternateColorCodes('&', title));
-                Bukkit.broadcastMessage(ChatColor.translateAlternateColorCodes('&', subTitle));
-                getLogger().info("全局倍率变更消息已广播");
-            }
-
-            sender.sendMessage(ChatColor.GREEN + "全局概率倍率已设置为: " + multiplier);
-            return true;
-        } catch (NumberFormatException e) {
-            // 数字格式错误
-            sender.sendMessage(ChatColor.RED + "无效的概率值: " + args[0]);
-            return false;
-        } catch (Exception e) {
-            // 其他错误
-            getLogger().severe("设置全局倍率时发生错误: " + e.getMessage());
-            e.printStackTrace();
-            sender.sendMessage(ChatColor.RED + "设置全局倍率失败: " + e.getMessage());
-            return false;
+            watcher.start();
+            this.configWatcher = watcher;
+            getLogger().info("已开启配置文件自动重载");
+        } catch (IOException e) {
+            getLogger().warning("无法监视配置文件，自动重载未开启: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -1,41 +1,125 @@
 package com.chengju.customdrops;
 
+import com.chengju.customdrops.actions.DropAction;
+import com.chengju.customdrops.drops.CooldownService;
+import com.chengju.customdrops.drops.DropSource;
+import com.chengju.customdrops.drops.DropTable;
+import com.chengju.customdrops.events.CronExpression;
+import com.chengju.customdrops.logs.LogWriter;
 import org.bukkit.Material;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
+/**
+ * 插件配置快照（不可变）。
+ * 重载时由 {@link ConfigManager} 完整构建后一次性发布，读取方无需任何同步。
+ */
 public class PluginConfiguration {
 
+    // 没有匹配任何工具配置时共用的空数组
+    public static final ToolConfig[] NO_TOOL_CONFIGS = new ToolConfig[0];
+
     private final Map<String, ToolConfig> toolConfigs;
-    private final double globalMultiplier;
+    // 工具材质查找表：下标为 Material.ordinal()，值为按配置顺序匹配该材质的工具配置
+    private final ToolConfig[][] toolIndex;
+    // 特定食物的掉落表
+    private final Map<Material, DropTable<DropConfig>> foodDrops;
+    // 任意食物（通配符*）的掉落表
+    private final DropTable<DropConfig> globalFoodDrops;
+    // 钓鱼掉落表
+    private final DropTable<DropConfig> fishingDrops;
+    // 附魔掉落表
+    private final DropTable<EnchantDropConfig> enchantDrops;
     private final String messageTitle;
     private final String messageSubTitle;
     private final boolean checkMcMMO;
+    // 是否监视 config.yml 并在内容变化后自动重载
+    private final boolean autoReload;
+    // 自动重载前合并连续写入事件的等待时间（毫秒）
+    private final long autoReloadDelay;
+    // 冷却设置
+    private final CooldownConfig cooldowns;
+    // 定时倍率活动（按配置顺序）
+    private final List<EventConfig> events;
+    // 重新计算在线玩家权限加成的间隔（服务器刻），0表示只在进入时计算
+    private final long bonusRefreshInterval;
+    // 日志设置
+    private final LogConfig logs;
+    // 掉落统计设置
+    private final StatsConfig stats;
 
     public PluginConfiguration(Map<String, ToolConfig> toolConfigs,
-                               double globalMultiplier,
+                               ToolConfig[][] toolIndex,
+                               Map<Material, DropTable<DropConfig>> foodDrops,
+                               DropTable<DropConfig> globalFoodDrops,
+                               DropTable<DropConfig> fishingDrops,
+                               DropTable<EnchantDropConfig> enchantDrops,
                                String messageTitle,
                                String messageSubTitle,
-                               boolean checkMcMMO) {
+                               boolean checkMcMMO,
+                               boolean autoReload,
+                               long autoReloadDelay,
+                               CooldownConfig cooldowns,
+                               List<EventConfig> events,
+                               long bonusRefreshInterval,
+                               LogConfig logs,
+                               StatsConfig stats) {
         // 深度拷贝以确保线程安全
-        this.toolConfigs = Collections.unmodifiableMap(new HashMap<>(toolConfigs));
-        this.globalMultiplier = globalMultiplier;
+        this.toolConfigs = Collections.unmodifiableMap(new LinkedHashMap<>(toolConfigs));
+        this.toolIndex = toolIndex;
+        this.foodDrops = foodDrops.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new EnumMap<>(foodDrops));
+        this.globalFoodDrops = globalFoodDrops;
+        this.fishingDrops = fishingDrops;
+        this.enchantDrops = enchantDrops;
         this.messageTitle = messageTitle;
         this.messageSubTitle = messageSubTitle;
         this.checkMcMMO = checkMcMMO;
+        this.autoReload = autoReload;
+        this.autoReloadDelay = autoReloadDelay;
+        this.cooldowns = cooldowns;
+        this.events = Collections.unmodifiableList(new ArrayList<>(events));
+        this.bonusRefreshInterval = bonusRefreshInterval;
+        this.logs = logs;
+        this.stats = stats;
     }
 
     public Map<String, ToolConfig> getToolConfigs() {
         return toolConfigs;
     }
 
-    public double getGlobalMultiplier() {
-        return globalMultiplier;
+    // 获取与工具材质匹配的工具配置（数组下标查找，无正则开销）
+    public ToolConfig[] getToolConfigs(Material toolType) {
+        return toolIndex[toolType.ordinal()];
+    }
+
+    // 获取特定食物的掉落表，未配置返回 null
+    public DropTable<DropConfig> getFoodDrops(Material foodType) {
+        return foodDrops.get(foodType);
+    }
+
+    public Map<Material, DropTable<DropConfig>> getFoodDrops() {
+        return foodDrops;
+    }
+
+    public DropTable<DropConfig> getGlobalFoodDrops() {
+        return globalFoodDrops;
+    }
+
+    public DropTable<DropConfig> getFishingDrops() {
+        return fishingDrops;
+    }
+
+    public DropTable<EnchantDropConfig> getEnchantDrops() {
+        return enchantDrops;
     }
 
     public String getMessageTitle() {
@@ -50,18 +134,205 @@ public class PluginConfiguration {
         return checkMcMMO;
     }
 
-    // 工具配置数据结构
+    public boolean isAutoReload() {
+        return autoReload;
+    }
+
+    public long getAutoReloadDelay() {
+        return autoReloadDelay;
+    }
+
+    public CooldownConfig getCooldowns() {
+        return cooldowns;
+    }
+
+    public List<EventConfig> getEvents() {
+        return events;
+    }
+
+    public long getBonusRefreshInterval() {
+        return bonusRefreshInterval;
+    }
+
+    public LogConfig getLogs() {
+        return logs;
+    }
+
+    public StatsConfig getStats() {
+        return stats;
+    }
+
+    // 日志设置（不可变）
+    public static class LogConfig {
+        // 查询的最大页码和每页最大条数（查询最多读取 MAX_PAGE * MAX_PAGE_SIZE + 1 条记录）
+        public static final int MAX_PAGE = 1000;
+        public static final int MAX_PAGE_SIZE = 100;
+
+        // 以下设置在日志写入线程启动时读取，修改后需要重启服务器才能生效
+        public final String store; // 存储后端 file/h2
+        public final int queueCapacity; // 写入队列容量（条）
+        public final long flushInterval; // 刷写间隔（毫秒）
+        public final LogWriter.OverflowPolicy overflowPolicy; // 队列已满时的处理方式
+        public final long blockTimeout; // BLOCK 时的最长等待（毫秒）
+        public final boolean journalEnabled; // 是否启用发放日志
+        // 以下设置重载后立即生效
+        public final int retentionDays; // 保留天数，0表示永久保留
+        public final int compressAfterDays; // 超过该天数压缩归档，0表示不压缩
+        public final int pageSize; // 查询每页条数
+        public final long queryCacheTtl; // 查询结果缓存时间（毫秒）
+
+        public LogConfig(String store, int queueCapacity, long flushInterval, LogWriter.OverflowPolicy overflowPolicy,
+                         long blockTimeout, boolean journalEnabled, int retentionDays, int compressAfterDays,
+                         int pageSize, long queryCacheTtl) {
+            this.store = store;
+            this.queueCapacity = queueCapacity;
+            this.flushInterval = flushInterval;
+            this.overflowPolicy = overflowPolicy;
+            this.blockTimeout = blockTimeout;
+            this.journalEnabled = journalEnabled;
+            this.retentionDays = retentionDays;
+            this.compressAfterDays = compressAfterDays;
+            this.pageSize = pageSize;
+            this.queryCacheTtl = queryCacheTtl;
+        }
+
+        // 与 other 相比发生变化、但只在启动时生效的设置（配置路径）
+        public List<String> restartRequired(LogConfig other) {
+            List<String> changed = new ArrayList<>();
+            if (!store.equalsIgnoreCase(other.store)) {
+                changed.add("logs.store");
+            }
+            if (queueCapacity != other.queueCapacity || flushInterval != other.flushInterval
+                    || overflowPolicy != other.overflowPolicy || blockTimeout != other.blockTimeout) {
+                changed.add("logs.writer");
+            }
+            if (journalEnabled != other.journalEnabled) {
+                changed.add("logs.journal.enabled");
+            }
+            return changed;
+        }
+    }
+
+    // 掉落统计设置（不可变）
+    public static class StatsConfig {
+        public final long snapshotInterval; // 保存快照的间隔（服务器刻）
+        public final int retentionHours; // 统计保留的小时数
+
+        public StatsConfig(long snapshotInterval, int retentionHours) {
+            this.snapshotInterval = snapshotInterval;
+            this.retentionHours = retentionHours;
+        }
+    }
+
+    // 定时倍率活动（不可变）
+    public static class EventConfig {
+        public final String name;
+        public final CronExpression start; // 开始时间
+        public final long duration; // 持续时间（毫秒）
+        // 各来源的倍率（下标为 DropSource.ordinal()）
+        private final double[] multipliers;
+
+        public EventConfig(String name, CronExpression start, long duration, Map<DropSource, Double> multipliers) {
+            this.name = name;
+            this.start = start;
+            this.duration = duration;
+            this.multipliers = new double[DropSource.values().length];
+            for (DropSource source : DropSource.values()) {
+                this.multipliers[source.ordinal()] = multipliers.getOrDefault(source, 1.0D);
+            }
+        }
+
+        public double getMultiplier(DropSource source) {
+            return multipliers[source.ordinal()];
+        }
+
+        // 各来源中最高的倍率（用于广播）
+        public double getMaxMultiplier() {
+            double max = 1.0D;
+            for (double multiplier : multipliers) {
+                max = Math.max(max, multiplier);
+            }
+            return max;
+        }
+    }
+
+    // 冷却设置（不可变，时间单位为服务器刻）
+    public static class CooldownConfig {
+        public final long grant; // 获得掉落后的防刷冷却（未单独设置的来源共用）
+        public final long digInterval; // 挖矿触发间隔
+        // 各来源单独设置的获得冷却（下标为 DropSource.ordinal()），-1 表示共用 grant
+        private final long[] sourceGrants;
+
+        public CooldownConfig(long grant, long digInterval, Map<DropSource, Long> sourceGrants) {
+            this.grant = grant;
+            this.digInterval = digInterval;
+            this.sourceGrants = new long[DropSource.values().length];
+            for (DropSource source : DropSource.values()) {
+                Long value = sourceGrants.get(source);
+                this.sourceGrants[source.ordinal()] = value != null ? value : -1L;
+            }
+        }
+
+        // 来源是否单独设置了获得冷却
+        public boolean hasSourceGrant(DropSource source) {
+            return sourceGrants[source.ordinal()] >= 0;
+        }
+
+        // 来源的获得冷却时长
+        public long getGrant(DropSource source) {
+            long value = sourceGrants[source.ordinal()];
+            return value >= 0 ? value : grant;
+        }
+    }
+
+    // 工具配置数据结构（不可变）
     public static class ToolConfig {
-        public Pattern pattern;
-        public Map<String, Integer> yMap = new HashMap<>();
-        public Map<Material, Map<String, DropConfig>> blockDrops = new ConcurrentHashMap<>();
+        public final Pattern pattern;
+        // 世界名 -> 最大高度
+        public final Map<String, Integer> yMap;
+        // 方块类型 -> 编译后的掉落表（按配置顺序）
+        public final Map<Material, DropTable<DropConfig>> blockDrops;
+
+        public ToolConfig(Pattern pattern, Map<String, Integer> yMap, Map<Material, DropTable<DropConfig>> blockDrops) {
+            this.pattern = pattern;
+            this.yMap = Collections.unmodifiableMap(new HashMap<>(yMap));
+            this.blockDrops = blockDrops.isEmpty()
+                    ? Collections.emptyMap()
+                    : Collections.unmodifiableMap(new EnumMap<>(blockDrops));
+        }
     }
 
-    // 掉落配置数据结构
+    // 掉落配置数据结构（不可变）
     public static class DropConfig {
-        public double chance; // 概率（0.0-1.0）
-        public String permission; // 权限节点（可选）
-        public List<String> actions;
-        public String dropName; // 添加掉落物名称字段
+        public final String dropName; // 掉落物名称
+        public final double chance; // 概率（0.0-1.0）
+        public final List<DropAction> actions; // 已编译的动作
+        public final long cooldown; // 该掉落物的冷却（服务器刻），0表示没有
+        public final int cooldownChannel; // 掉落物冷却渠道（加载时解析，同名掉落物共用），没有冷却时为-1
+
+        public DropConfig(String dropName, double chance, List<DropAction> actions, long cooldown) {
+            this.dropName = dropName;
+            this.chance = chance;
+            this.actions = actions;
+            this.cooldown = cooldown;
+            this.cooldownChannel = cooldown > 0 ? CooldownService.channel("drop:" + dropName) : -1;
+        }
+    }
+
+    // 附魔掉落配置数据结构（不可变）
+    public static class EnchantDropConfig extends DropConfig {
+        public final Pattern itemPattern;     // 物品匹配正则（可为空）
+        public final Pattern enchantPattern;  // 附魔匹配正则（可为空）
+        public final int minLevel;            // 最低生效等级
+        public final int maxLevel;            // 最高生效等级
+
+        public EnchantDropConfig(String dropName, double chance, List<DropAction> actions, long cooldown,
+                                 Pattern itemPattern, Pattern enchantPattern, int minLevel, int maxLevel) {
+            super(dropName, chance, actions, cooldown);
+            this.itemPattern = itemPattern;
+            this.enchantPattern = enchantPattern;
+            this.minLevel = minLevel;
+            this.maxLevel = maxLevel;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package com.chengju.customdrops.actions;
+
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.TextComponent;
+
+/**
+ * [ACTION] 动作栏消息（不含占位符时组件在加载时生成并复用）
+ */
+final class ActionBarAction implements DropAction {
+
+    private final String source;
+    private final PlaceholderTemplate message;
+    // 静态消息的预生成组件，含占位符时为 null
+    private final BaseComponent[] cached;
+
+    ActionBarAction(String source, PlaceholderTemplate message) {
+        this.source = source;
+        this.message = message;
+        this.cached = message.isConstant() ? TextComponent.fromLegacyText(message.render(null)) : null;
+    }
+
+    @Override
+    public void execute(ActionContext context) {
+        BaseComponent[] components = cached != null ? cached : TextComponent.fromLegacyText(message.render(context));
+        context.getPlayer().spigot().sendMessage(ChatMessageType.ACTION_BAR, components);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
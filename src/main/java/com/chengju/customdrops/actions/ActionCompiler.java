@@ -0,0 +1,73 @@
+package com.chengju.customdrops.actions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * 将配置中的 string-action 列表编译为不可变的动作对象。
+ * 格式错误的动作在加载时报告一次并跳过，不会在触发时抛出异常。
+ */
+public final class ActionCompiler {
+
+    private ActionCompiler() {
+    }
+
+    /**
+     * 编译动作列表
+     * @param actions 配置中的动作字符串
+     * @param logger 用于报告无效动作
+     * @param path 配置路径（用于错误提示）
+     * @return 不可变的动作列表
+     */
+    public static List<DropAction> compile(List<String> actions, Logger logger, String path) {
+        List<DropAction> compiled = new ArrayList<>(actions.size());
+        for (String action : actions) {
+            try {
+                DropAction dropAction = compile(action);
+                if (dropAction != null) {
+                    compiled.add(dropAction);
+                }
+            } catch (IllegalArgumentException e) {
+                logger.warning("无效的动作 " + path + ": " + action + " (" + e.getMessage() + ")");
+            }
+        }
+        return Collections.unmodifiableList(compiled);
+    }
+
+    // 编译单个动作
+    private static DropAction compile(String action) {
+        // 控制台指令
+        if (action.startsWith("[CMD]")) {
+            return new CommandAction(action, PlaceholderTemplate.compile(action.substring(5), false));
+        }
+        // 全服广播
+        if (action.startsWith("[BD]")) {
+            return new BroadcastAction(action, PlaceholderTemplate.compile(action.substring(4), true));
+        }
+        // 标题动画，格式：[TITLE]fadeIn;stay;fadeOut;标题;副标题
+        if (action.startsWith("[TITLE]")) {
+            String[] parts = action.substring(7).split(";", 5);
+            if (parts.length != 5) {
+                throw new IllegalArgumentException("格式应为 [TITLE]淡入;停留;淡出;标题;副标题");
+            }
+            try {
+                int fadeIn = Integer.parseInt(parts[0].trim());
+                int stay = Integer.parseInt(parts[1].trim());
+                int fadeOut = Integer.parseInt(parts[2].trim());
+                PlaceholderTemplate title = PlaceholderTemplate.compile(parts[3], true);
+                PlaceholderTemplate subtitle = PlaceholderTemplate.compile(parts[4], true);
+                return new TitleAction(action, fadeIn, stay, fadeOut, title, subtitle);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("时间参数必须为整数");
+            }
+        }
+        // 动作栏消息
+        if (action.startsWith("[ACTION]")) {
+            return new ActionBarAction(action, PlaceholderTemplate.compile(action.substring(8), true));
+        }
+        // 普通聊天消息（默认动作）
+        return new MessageAction(action, PlaceholderTemplate.compile(action, true));
+    }
+}
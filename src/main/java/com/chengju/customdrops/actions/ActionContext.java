@@ -0,0 +1,61 @@
+package com.chengju.customdrops.actions;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+
+/**
+ * 一次掉落触发的上下文，供动作与占位符使用。
+ */
+public final class ActionContext {
+
+    private final Player player;
+    private final String dropName;
+    private final String source;
+    private final Location location;
+    private final Material block;
+    private final double multiplier;
+
+    /**
+     * @param player 触发掉落的玩家
+     * @param dropName 掉落物名称
+     * @param source 获取来源（挖矿/钓鱼/食用/附魔）
+     * @param location 触发位置（为 null 时使用玩家位置）
+     * @param block 相关方块类型（可为 null）
+     * @param multiplier 本次生效的概率倍率
+     */
+    public ActionContext(Player player, String dropName, String source,
+                         Location location, Material block, double multiplier) {
+        this.player = player;
+        this.dropName = dropName;
+        this.source = source;
+        this.location = location;
+        this.block = block;
+        this.multiplier = multiplier;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public String getDropName() {
+        return dropName;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    // 触发位置，未指定时返回玩家当前位置
+    public Location getLocation() {
+        return location != null ? location : player.getLocation();
+    }
+
+    public Material getBlock() {
+        return block;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+}
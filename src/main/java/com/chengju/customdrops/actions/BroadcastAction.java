@@ -0,0 +1,27 @@
+package com.chengju.customdrops.actions;
+
+import org.bukkit.Bukkit;
+
+/**
+ * [BD] 全服广播
+ */
+final class BroadcastAction implements DropAction {
+
+    private final String source;
+    private final PlaceholderTemplate message;
+
+    BroadcastAction(String source, PlaceholderTemplate message) {
+        this.source = source;
+        this.message = message;
+    }
+
+    @Override
+    public void execute(ActionContext context) {
+        Bukkit.broadcastMessage(message.render(context));
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
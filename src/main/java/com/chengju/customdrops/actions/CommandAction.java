@@ -0,0 +1,27 @@
+package com.chengju.customdrops.actions;
+
+import org.bukkit.Bukkit;
+
+/**
+ * [CMD] 以控制台身份执行命令
+ */
+final class CommandAction implements DropAction {
+
+    private final String source;
+    private final PlaceholderTemplate command;
+
+    CommandAction(String source, PlaceholderTemplate command) {
+        this.source = source;
+        this.command = command;
+    }
+
+    @Override
+    public void execute(ActionContext context) {
+        Bukkit.dispatchCommand(Bukkit.getConsoleSender(), command.render(context));
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
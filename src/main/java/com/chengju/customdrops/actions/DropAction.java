@@ -0,0 +1,13 @@
+package com.chengju.customdrops.actions;
+
+/**
+ * 掉落触发后执行的动作（配置加载时由 {@link ActionCompiler} 编译，不可变）。
+ */
+public interface DropAction {
+
+    /**
+     * 执行动作
+     * @param context 本次掉落的上下文（玩家、掉落物、位置等）
+     */
+    void execute(ActionContext context);
+}
@@ -0,0 +1,25 @@
+package com.chengju.customdrops.actions;
+
+/**
+ * 默认动作：向玩家发送聊天消息
+ */
+final class MessageAction implements DropAction {
+
+    private final String source;
+    private final PlaceholderTemplate message;
+
+    MessageAction(String source, PlaceholderTemplate message) {
+        this.source = source;
+        this.message = message;
+    }
+
+    @Override
+    public void execute(ActionContext context) {
+        context.getPlayer().sendMessage(message.render(context));
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
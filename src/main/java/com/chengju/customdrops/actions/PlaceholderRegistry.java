@@ -0,0 +1,62 @@
+package com.chengju.customdrops.actions;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 占位符注册表。
+ * <p>
+ * 模板在编译时查找占位符并保存解析器引用，渲染时才调用解析器，
+ * 因此未被任何模板使用的占位符不会产生开销。新注册的占位符在下次重载配置后生效。
+ */
+public final class PlaceholderRegistry {
+
+    // 占位符解析器
+    public interface Placeholder {
+        String resolve(ActionContext context);
+    }
+
+    // 占位符名称（不含%） -> 解析器
+    private static final Map<String, Placeholder> PLACEHOLDERS = new ConcurrentHashMap<>();
+
+    static {
+        register("player", context -> context.getPlayer().getName());
+        register("world", context -> {
+            World world = context.getLocation().getWorld();
+            return world != null ? world.getName() : context.getPlayer().getWorld().getName();
+        });
+        register("x", context -> String.valueOf(context.getLocation().getBlockX()));
+        register("y", context -> String.valueOf(context.getLocation().getBlockY()));
+        register("z", context -> String.valueOf(context.getLocation().getBlockZ()));
+        register("block", context -> {
+            Material block = context.getBlock();
+            return block != null ? block.name() : "";
+        });
+        register("drop", ActionContext::getDropName);
+        register("source", ActionContext::getSource);
+        register("multiplier", context -> String.valueOf(context.getMultiplier()));
+    }
+
+    private PlaceholderRegistry() {
+    }
+
+    /**
+     * 注册占位符
+     * @param name 占位符名称（不含%），如 "player" 对应 %player%
+     * @param placeholder 解析器
+     */
+    public static void register(String name, Placeholder placeholder) {
+        PLACEHOLDERS.put(name, placeholder);
+    }
+
+    // 获取占位符解析器，未注册返回 null
+    static Placeholder get(String name) {
+        if (name.isEmpty()) {
+            return null;
+        }
+        return PLACEHOLDERS.get(name);
+    }
+}
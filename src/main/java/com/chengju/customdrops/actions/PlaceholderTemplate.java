@@ -0,0 +1,111 @@
+package com.chengju.customdrops.actions;
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 编译后的占位符模板。
+ * <p>
+ * 加载时将文本拆分为字面量片段与占位符片段（占位符来自 {@link PlaceholderRegistry}），
+ * 渲染时按片段顺序写入一个预估好容量的 StringBuilder，只解析模板中实际出现的占位符。
+ */
+public final class PlaceholderTemplate {
+
+    // 每个占位符预留的长度（玩家名、世界名、坐标等通常不超过16个字符）
+    private static final int PLACEHOLDER_ESTIMATE = 16;
+
+    // 片段：String 为字面量，PlaceholderRegistry.Placeholder 为占位符
+    private final Object[] segments;
+    // 渲染结果的预估长度
+    private final int estimatedLength;
+    // 是否不含任何占位符
+    private final boolean constant;
+
+    private PlaceholderTemplate(Object[] segments, int estimatedLength, boolean constant) {
+        this.segments = segments;
+        this.estimatedLength = estimatedLength;
+        this.constant = constant;
+    }
+
+    /**
+     * 编译模板，未注册的 %xxx% 按原样保留
+     * @param text 原始文本
+     * @param colored 是否转换 & 颜色代码（只作用于字面量部分）
+     */
+    public static PlaceholderTemplate compile(String text, boolean colored) {
+        List<Object> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int literalLength = 0;
+        int placeholders = 0;
+
+        int index = 0;
+        while (index < text.length()) {
+            int start = text.indexOf('%', index);
+            int end = start < 0 ? -1 : text.indexOf('%', start + 1);
+            if (end < 0) {
+                literal.append(text, index, text.length());
+                break;
+            }
+
+            PlaceholderRegistry.Placeholder placeholder = PlaceholderRegistry.get(text.substring(start + 1, end));
+            if (placeholder == null) {
+                // 不是已注册的占位符：保留第一个 %，从第二个 % 处继续查找
+                literal.append(text, index, end);
+                index = end;
+                continue;
+            }
+
+            literal.append(text, index, start);
+            if (literal.length() > 0) {
+                String segment = literal(literal.toString(), colored);
+                segments.add(segment);
+                literalLength += segment.length();
+                literal.setLength(0);
+            }
+            segments.add(placeholder);
+            placeholders++;
+            index = end + 1;
+        }
+        if (literal.length() > 0) {
+            String segment = literal(literal.toString(), colored);
+            segments.add(segment);
+            literalLength += segment.length();
+        }
+
+        return new PlaceholderTemplate(segments.toArray(),
+                literalLength + placeholders * PLACEHOLDER_ESTIMATE, placeholders == 0);
+    }
+
+    private static String literal(String text, boolean colored) {
+        return colored ? ChatColor.translateAlternateColorCodes('&', text) : text;
+    }
+
+    // 模板中是否不含占位符
+    public boolean isConstant() {
+        return constant;
+    }
+
+    /**
+     * 渲染模板
+     * @param context 动作上下文（模板不含占位符时可为 null）
+     */
+    public String render(ActionContext context) {
+        if (segments.length == 0) {
+            return "";
+        }
+        if (segments.length == 1 && constant) {
+            return (String) segments[0];
+        }
+        StringBuilder builder = new StringBuilder(estimatedLength);
+        for (Object segment : segments) {
+            if (segment instanceof String) {
+                builder.append((String) segment);
+            } else {
+                builder.append(((PlaceholderRegistry.Placeholder) segment).resolve(context));
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,34 @@
+package com.chengju.customdrops.actions;
+
+/**
+ * [TITLE] 标题动画（时间参数与文本模板已在加载时解析）
+ */
+final class TitleAction implements DropAction {
+
+    private final String source;
+    private final int fadeIn;
+    private final int stay;
+    private final int fadeOut;
+    private final PlaceholderTemplate title;
+    private final PlaceholderTemplate subtitle;
+
+    TitleAction(String source, int fadeIn, int stay, int fadeOut,
+                PlaceholderTemplate title, PlaceholderTemplate subtitle) {
+        this.source = source;
+        this.fadeIn = fadeIn;
+        this.stay = stay;
+        this.fadeOut = fadeOut;
+        this.title = title;
+        this.subtitle = subtitle;
+    }
+
+    @Override
+    public void execute(ActionContext context) {
+        context.getPlayer().sendTitle(title.render(context), subtitle.render(context), fadeIn, stay, fadeOut);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
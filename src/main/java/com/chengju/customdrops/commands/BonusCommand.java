@@ -26,6 +26,8 @@ public class BonusCommand implements CommandExecutor {
         }
 
         Player player = (Player) sender;
+        // 查看时重新计算一次，权限刚变化时也能看到最新的加成
+        plugin.refreshPlayerBonus(player);
         double bonusMultiplier = plugin.getPlayerBonusMultiplier(player);
         int bonusPercent = (int) ((bonusMultiplier - 1.0) * 100);
 
@@ -5,6 +5,7 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.util.StringUtil;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -13,7 +14,7 @@ import java.util.List;
 public class CustomDropTabCompleter implements TabCompleter {
 
     private static final List<String> MAIN_COMMANDS = Arrays.asList(
-            "reload", "ip", "mylogs", "mybonus"
+            "reload", "ip", "mylogs", "mybonus", "stats", "search", "export", "events"
     );
 
     private static final List<String> EMPTY_LIST = Collections.emptyList();
@@ -38,17 +39,30 @@ public class CustomDropTabCompleter implements TabCompleter {
                     return StringUtil.copyPartialMatches(args[1], Arrays.asList("1.0", "1.5", "2.0", "3.0"), new ArrayList<>());
                 }
 
+                // /customdrop export 的参数补全
+                if ("export".equalsIgnoreCase(subCommand)) {
+                    return StringUtil.copyPartialMatches(args[1], Arrays.asList("cancel", LocalDate.now().toString()), new ArrayList<>());
+                }
+
                 // /customdrop mylogs 的参数补全
                 if ("mylogs".equalsIgnoreCase(subCommand)) {
                     return StringUtil.copyPartialMatches(args[1], Arrays.asList("1", "3", "7", "14", "30"), new ArrayList<>());
                 }
             }
+
+            // /customdrop export 的格式补全
+            if (args.length == 4 && "export".equalsIgnoreCase(args[0])) {
+                return StringUtil.copyPartialMatches(args[3], Arrays.asList("csv", "jsonl"), new ArrayList<>());
+            }
         }
 
         // 处理 ip 命令
         if (cmd.getName().equalsIgnoreCase("ip")) {
             if (args.length == 1) {
-                return StringUtil.copyPartialMatches(args[0], Arrays.asList("1.0", "1.5", "2.0", "3.0"), new ArrayList<>());
+                return StringUtil.copyPartialMatches(args[0], Arrays.asList("1.0", "1.5", "2.0", "3.0", "list", "clear"), new ArrayList<>());
+            }
+            if (args.length == 2 && !args[0].equalsIgnoreCase("list") && !args[0].equalsIgnoreCase("clear")) {
+                return StringUtil.copyPartialMatches(args[1], Arrays.asList("30m", "1h", "2h", "1d", "world", "source", "player"), new ArrayList<>());
             }
         }
 
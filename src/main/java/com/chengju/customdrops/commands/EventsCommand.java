@@ -0,0 +1,68 @@
+package com.chengju.customdrops.commands;
+
+import com.chengju.customdrops.CustomDropsPlugin;
+import com.chengju.customdrops.drops.DropSource;
+import com.chengju.customdrops.events.EventScheduler;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * /cd events：查看定时倍率活动（进行中的结束时间，或下一次开始时间）
+ */
+public class EventsCommand {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm (E)");
+
+    private final CustomDropsPlugin plugin;
+
+    public EventsCommand(CustomDropsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * @param args events 之后的参数
+     */
+    public boolean execute(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("customdrops.command.events")) {
+            sender.sendMessage(ChatColor.RED + "你没有权限使用此命令!");
+            return true;
+        }
+
+        List<EventScheduler.Window> windows = this.plugin.getEventScheduler().getWindows();
+        sender.sendMessage(ChatColor.GOLD + "===== 定时活动 =====");
+        if (windows.isEmpty()) {
+            sender.sendMessage(ChatColor.YELLOW + "没有配置定时活动");
+        }
+        for (EventScheduler.Window window : windows) {
+            String status;
+            if (window.start == null) {
+                status = ChatColor.GRAY + "近期不会开始";
+            } else if (window.active) {
+                status = ChatColor.GREEN + "进行中, 至 " + TIME_FORMAT.format(window.end);
+            } else {
+                status = ChatColor.YELLOW + TIME_FORMAT.format(window.start) + " 至 " + TIME_FORMAT.format(window.end);
+            }
+            sender.sendMessage(ChatColor.AQUA + window.event.name + ChatColor.WHITE + ": " + status);
+            sender.sendMessage(ChatColor.GRAY + "  倍率: " + describeMultipliers(window));
+        }
+        sender.sendMessage(ChatColor.GOLD + "===================");
+        return true;
+    }
+
+    // 各来源的倍率（都相同时合并显示）
+    private static String describeMultipliers(EventScheduler.Window window) {
+        List<String> parts = new ArrayList<>();
+        double first = window.event.getMultiplier(DropSource.values()[0]);
+        boolean same = true;
+        for (DropSource source : DropSource.values()) {
+            double multiplier = window.event.getMultiplier(source);
+            same &= multiplier == first;
+            parts.add(source.getDisplayName() + " x" + multiplier);
+        }
+        return same ? "全部来源 x" + first : String.join(", ", parts);
+    }
+}
@@ -0,0 +1,71 @@
+package com.chengju.customdrops.commands;
+
+import com.chengju.customdrops.CustomDropsPlugin;
+import com.chengju.customdrops.logs.LogExporter;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * /cd export <起始日期> <结束日期> [csv|jsonl]：把日志导出到插件目录下的 exports 文件夹；
+ * /cd export cancel：取消正在进行的导出
+ */
+public class ExportCommand {
+
+    private final CustomDropsPlugin plugin;
+
+    public ExportCommand(CustomDropsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * @param args export 之后的参数
+     */
+    public boolean execute(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("customdrops.command.export")) {
+            sender.sendMessage(ChatColor.RED + "你没有权限使用此命令!");
+            return true;
+        }
+        if (args.length == 1 && args[0].equalsIgnoreCase("cancel")) {
+            if (this.plugin.getLogManager().cancelExport()) {
+                sender.sendMessage(ChatColor.YELLOW + "正在取消导出...");
+            } else {
+                sender.sendMessage(ChatColor.RED + "没有正在进行的导出");
+            }
+            return true;
+        }
+        if (args.length < 2) {
+            sender.sendMessage(ChatColor.RED + "用法: /cd export <起始日期> <结束日期> [csv|jsonl] 或 /cd export cancel");
+            return true;
+        }
+
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = LocalDate.parse(args[0]);
+            to = LocalDate.parse(args[1]);
+        } catch (DateTimeParseException e) {
+            sender.sendMessage(ChatColor.RED + "无效的日期: " + e.getParsedString() + " (格式: yyyy-MM-dd)");
+            return true;
+        }
+        if (from.isAfter(to)) {
+            sender.sendMessage(ChatColor.RED + "起始日期不能晚于结束日期");
+            return true;
+        }
+        LogExporter.Format format = args.length > 2 ? LogExporter.Format.parse(args[2]) : LogExporter.Format.CSV;
+        if (format == null) {
+            sender.sendMessage(ChatColor.RED + "无效的格式: " + args[2] + " (可选: csv, jsonl)");
+            return true;
+        }
+
+        LogExporter exporter = this.plugin.getLogManager().startExport(from, to, format, sender);
+        if (exporter == null) {
+            sender.sendMessage(ChatColor.RED + "已有导出正在进行，请等待完成或使用 /cd export cancel 取消");
+            return true;
+        }
+        sender.sendMessage(ChatColor.GREEN + "开始导出 " + from + " 至 " + to + " 的日志到 " + exporter.getFile().getName());
+        return true;
+    }
+}
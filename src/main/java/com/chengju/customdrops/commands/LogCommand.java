@@ -1,16 +1,25 @@
 package com.chengju.customdrops.commands;
 
 import com.chengju.customdrops.CustomDropsPlugin;
+import com.chengju.customdrops.PluginConfiguration;
+import com.chengju.customdrops.logs.LogEntry;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
-import java.util.Map;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
 
 public class LogCommand implements CommandExecutor {
 
+    // 记录时间显示格式
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     private final CustomDropsPlugin plugin;
 
     public LogCommand(CustomDropsPlugin plugin) {
@@ -43,23 +52,85 @@ public class LogCommand implements CommandExecutor {
             }
         }
 
-        // 获取日志
-        Map<String, String> logs = plugin.getLogManager().getRecentPlayerLogs(player, days);
+        // 解析可选参数: page <页码> / source <获取途径> / drop <物品名称>（物品名称放在最后，可包含空格）
+        int page = 1;
+        String source = null;
+        String itemName = null;
+        for (int i = 1; i < args.length; i++) {
+            String option = args[i].toLowerCase();
+            if (option.equals("drop") && i + 1 < args.length) {
+                itemName = String.join(" ", Arrays.copyOfRange(args, i + 1, args.length));
+                break;
+            }
+            if (option.equals("source") && i + 1 < args.length) {
+                source = args[++i];
+                continue;
+            }
+            // 兼容 /mylogs <天数> <页码>
+            String pageArg = option.equals("page") && i + 1 < args.length ? args[++i] : args[i];
+            try {
+                page = Integer.parseInt(pageArg);
+                if (page < 1 || page > PluginConfiguration.LogConfig.MAX_PAGE) {
+                    player.sendMessage(ChatColor.RED + "页码必须在 1 到 " + PluginConfiguration.LogConfig.MAX_PAGE + " 之间");
+                    return true;
+                }
+            } catch (NumberFormatException e) {
+                player.sendMessage(ChatColor.RED + "无效的参数: " + pageArg);
+                return true;
+            }
+        }
+
+        // 只读取到下一页的第一条为止，用于判断是否还有下一页；在工作线程读取，结果回到主线程显示
+        int pageSize = plugin.getConfigManager().getCurrentConfig().getLogs().pageSize;
+        int queryDays = days;
+        int queryPage = page;
+        String filter = describeFilter(source, itemName);
+        plugin.getLogManager().queryLatestPlayerLogs(player, days, page * pageSize + 1, source, itemName, logs -> {
+            if (player.isOnline()) {
+                showPage(player, logs, queryDays, queryPage, pageSize, filter);
+            }
+        });
+        return true;
+    }
+
+    // 筛选条件的显示文字
+    private static String describeFilter(String source, String itemName) {
+        StringBuilder filter = new StringBuilder();
+        if (source != null) {
+            filter.append(" source ").append(source);
+        }
+        if (itemName != null) {
+            filter.append(" drop ").append(itemName);
+        }
+        return filter.toString();
+    }
 
+    // 显示一页日志（logs 为最新的若干条记录，最新的在前）
+    private void showPage(Player player, List<LogEntry> logs, int days, int page, int pageSize, String filter) {
         if (logs.isEmpty()) {
             player.sendMessage(ChatColor.YELLOW + "最近" + days + "天内没有获取物品的记录");
-            return true;
+            return;
+        }
+
+        int from = (page - 1) * pageSize;
+        if (from >= logs.size()) {
+            player.sendMessage(ChatColor.RED + "页码超出范围，共 " + ((logs.size() + pageSize - 1) / pageSize) + " 页");
+            return;
         }
 
         // 显示日志
-        player.sendMessage(ChatColor.GOLD + "===== 物品获取记录 (" + days + "天内) =====");
-        for (Map.Entry<String, String> entry : logs.entrySet()) {
-            player.sendMessage(ChatColor.GREEN + entry.getKey() + ChatColor.WHITE + ": " +
-                    ChatColor.AQUA + entry.getValue());
+        player.sendMessage(ChatColor.GOLD + "===== 物品获取记录 (" + days + "天内 第" + page + "页) =====");
+        int end = Math.min(logs.size(), from + pageSize);
+        for (LogEntry entry : logs.subList(from, end)) {
+            String time = TIME_FORMAT.format(Instant.ofEpochMilli(entry.getTimestamp()).atZone(ZoneId.systemDefault()));
+            player.sendMessage(ChatColor.GREEN + time + ChatColor.WHITE + ": " +
+                    ChatColor.AQUA + entry.getItemName() + "(" + entry.getSource() + ")");
         }
         player.sendMessage(ChatColor.GOLD + "===============================");
-        player.sendMessage(ChatColor.GRAY + "共找到 " + logs.size() + " 条记录");
-
-        return true;
+        if (logs.size() > end) {
+            player.sendMessage(ChatColor.GRAY + "输入 /mylogs " + days + " page " + (page + 1) + filter + " 查看下一页");
+        } else {
+            player.sendMessage(ChatColor.GRAY + "共找到 " + logs.size() + " 条记录");
+        }
     }
 }
\ No newline at end of file
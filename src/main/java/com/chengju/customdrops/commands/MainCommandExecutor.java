@@ -6,26 +6,54 @@ import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 
+import java.util.Arrays;
+
 public class MainCommandExecutor implements CommandExecutor {
 
     private final CustomDropsPlugin plugin;
+    private final StatsCommand statsCommand;
+    private final SearchCommand searchCommand;
+    private final ExportCommand exportCommand;
+    private final EventsCommand eventsCommand;
 
     public MainCommandExecutor(CustomDropsPlugin plugin) {
         this.plugin = plugin;
+        this.statsCommand = new StatsCommand(plugin);
+        this.searchCommand = new SearchCommand(plugin);
+        this.exportCommand = new ExportCommand(plugin);
+        this.eventsCommand = new EventsCommand(plugin);
     }
 
     @Override
     public boolean onCommand(CommandSender sender, Command cmd, String label, String[] args) {
+        if (args.length > 0 && args[0].equalsIgnoreCase("stats")) {
+            return this.statsCommand.execute(sender, Arrays.copyOfRange(args, 1, args.length));
+        }
+        if (args.length > 0 && args[0].equalsIgnoreCase("search")) {
+            return this.searchCommand.execute(sender, Arrays.copyOfRange(args, 1, args.length));
+        }
+        if (args.length > 0 && args[0].equalsIgnoreCase("export")) {
+            return this.exportCommand.execute(sender, Arrays.copyOfRange(args, 1, args.length));
+        }
+        if (args.length > 0 && args[0].equalsIgnoreCase("events")) {
+            return this.eventsCommand.execute(sender, Arrays.copyOfRange(args, 1, args.length));
+        }
+
         sender.sendMessage(ChatColor.GOLD + "===== CustomDrops 帮助 =====");
         sender.sendMessage(ChatColor.YELLOW + "/customdrop reload " + ChatColor.GRAY + "- 重新加载配置");
         sender.sendMessage(ChatColor.YELLOW + "/customdrop ip <倍率> " + ChatColor.GRAY + "- 设置全局概率倍率");
         sender.sendMessage(ChatColor.YELLOW + "/customdrop mylogs [天数] " + ChatColor.GRAY + "- 查看物品获取记录");
         sender.sendMessage(ChatColor.YELLOW + "/customdrop mybonus " + ChatColor.GRAY + "- 查看概率加成信息");
+        sender.sendMessage(ChatColor.YELLOW + "/customdrop stats [掉落物] [小时数] " + ChatColor.GRAY + "- 查看掉落统计");
+        sender.sendMessage(ChatColor.YELLOW + "/customdrop search <掉落物> [起始时间] [结束时间] [页码] " + ChatColor.GRAY + "- 查询掉落物获取记录");
+        sender.sendMessage(ChatColor.YELLOW + "/customdrop export <起始日期> <结束日期> [csv|jsonl] " + ChatColor.GRAY + "- 导出掉落日志");
+        sender.sendMessage(ChatColor.YELLOW + "/customdrop events " + ChatColor.GRAY + "- 查看定时倍率活动");
         sender.sendMessage(ChatColor.GOLD + "========================");
         sender.sendMessage(ChatColor.GRAY + "快捷命令:");
         sender.sendMessage(ChatColor.YELLOW + "/cdreload " + ChatColor.GRAY + "- 重新加载配置");
-        sender.sendMessage(ChatColor.YELLOW + "/ip <倍率> " + ChatColor.GRAY + "- 设置全局概率倍率");
-        sender.sendMessage(ChatColor.YELLOW + "/mylogs [天数] " + ChatColor.GRAY + "- 查看物品获取记录");
+        sender.sendMessage(ChatColor.YELLOW + "/ip <倍率> [时长] [world|source|player <对象>] " + ChatColor.GRAY + "- 设置概率倍率或限时加成");
+        sender.sendMessage(ChatColor.YELLOW + "/ip list | clear " + ChatColor.GRAY + "- 查看倍率 / 移除所有限时加成");
+        sender.sendMessage(ChatColor.YELLOW + "/mylogs [天数] [page <页码>] " + ChatColor.GRAY + "- 查看物品获取记录");
         sender.sendMessage(ChatColor.YELLOW + "/mybonus " + ChatColor.GRAY + "- 查看概率加成信息");
         return true;
     }
@@ -0,0 +1,159 @@
+package com.chengju.customdrops.commands;
+
+import com.chengju.customdrops.CustomDropsPlugin;
+import com.chengju.customdrops.drops.DropSource;
+import com.chengju.customdrops.drops.MultiplierStack;
+import com.chengju.customdrops.events.Durations;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * /ip &lt;倍率&gt; [时长] [world &lt;世界&gt; | source &lt;来源&gt; | player &lt;玩家&gt;]：设置倍率或添加限时加成；
+ * /ip list：查看当前所有倍率；/ip clear：移除所有限时加成
+ */
+public class MultiplierCommand implements CommandExecutor {
+
+    private final CustomDropsPlugin plugin;
+
+    public MultiplierCommand(CustomDropsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command cmd, String label, String[] args) {
+        if (args.length < 1) {
+            sender.sendMessage(ChatColor.RED + "用法: /ip <倍率> [时长] [world <世界>|source <来源>|player <玩家>]");
+            sender.sendMessage(ChatColor.RED + "      /ip list | /ip clear");
+            return true;
+        }
+        MultiplierStack multipliers = this.plugin.getDropEngine().getMultipliers();
+        if (args[0].equalsIgnoreCase("list")) {
+            showLayers(sender, multipliers);
+            return true;
+        }
+        if (args[0].equalsIgnoreCase("clear")) {
+            sender.sendMessage(ChatColor.GREEN + "已移除 " + multipliers.clearBoosts() + " 个限时加成");
+            return true;
+        }
+
+        double multiplier;
+        try {
+            multiplier = Double.parseDouble(args[0]);
+        } catch (NumberFormatException e) {
+            sender.sendMessage(ChatColor.RED + "无效的概率值: " + args[0]);
+            return true;
+        }
+        if (multiplier <= 0 || Double.isInfinite(multiplier) || Double.isNaN(multiplier)) {
+            sender.sendMessage(ChatColor.RED + "倍率必须大于0");
+            return true;
+        }
+
+        // 第二个参数是时长时为限时加成
+        int next = 1;
+        long duration = 0L;
+        if (args.length > 1 && (duration = Durations.parse(args[1])) > 0) {
+            next = 2;
+        }
+
+        // 作用范围（默认全局）
+        MultiplierStack.Scope scope = MultiplierStack.Scope.GLOBAL;
+        String target = "";
+        String targetName = "";
+        if (args.length > next) {
+            if (args.length < next + 2) {
+                sender.sendMessage(ChatColor.RED + "请指定" + args[next] + "的对象，例如: /ip 2.0 30m source dig");
+                return true;
+            }
+            String value = args[next + 1];
+            switch (args[next].toLowerCase(Locale.ROOT)) {
+                case "world":
+                    if (Bukkit.getWorld(value) == null) {
+                        sender.sendMessage(ChatColor.RED + "世界不存在: " + value);
+                        return true;
+                    }
+                    scope = MultiplierStack.Scope.WORLD;
+                    target = value;
+                    targetName = value;
+                    break;
+                case "source":
+                    DropSource source = parseSource(value);
+                    if (source == null) {
+                        sender.sendMessage(ChatColor.RED + "无效的来源: " + value + " (可选: dig, fishing, consume, enchant)");
+                        return true;
+                    }
+                    scope = MultiplierStack.Scope.SOURCE;
+                    target = MultiplierStack.sourceKey(source);
+                    targetName = source.getDisplayName();
+                    break;
+                case "player":
+                    Player player = Bukkit.getPlayerExact(value);
+                    if (player == null) {
+                        sender.sendMessage(ChatColor.RED + "玩家不在线: " + value);
+                        return true;
+                    }
+                    scope = MultiplierStack.Scope.PLAYER;
+                    target = player.getUniqueId().toString();
+                    targetName = player.getName();
+                    break;
+                default:
+                    sender.sendMessage(ChatColor.RED + "无效的参数: " + args[next]
+                            + (next == 1 ? " (时长格式如 30m、2h、1h30m)" : ""));
+                    return true;
+            }
+        }
+
+        String scopeName = scope.getDisplayName() + (targetName.isEmpty() ? "" : " " + targetName);
+        if (duration > 0) {
+            multipliers.boost(scope, target, multiplier, duration);
+            this.plugin.getLogger().info("添加限时倍率加成: " + scopeName + " x" + multiplier + " " + args[1]);
+            sender.sendMessage(ChatColor.GREEN + scopeName + "限时加成 x" + multiplier + " 已生效, 持续 " + args[1]);
+        } else {
+            multipliers.set(scope, target, multiplier);
+            this.plugin.getLogger().info("设置倍率: " + scopeName + " x" + multiplier);
+            sender.sendMessage(ChatColor.GREEN + scopeName + "概率倍率已设置为: " + multiplier);
+        }
+        if (scope == MultiplierStack.Scope.GLOBAL) {
+            this.plugin.broadcastMultiplier(multiplier);
+        }
+        return true;
+    }
+
+    // 显示所有倍率
+    private static void showLayers(CommandSender sender, MultiplierStack multipliers) {
+        List<MultiplierStack.Layer> layers = multipliers.getLayers();
+        sender.sendMessage(ChatColor.GOLD + "===== 当前倍率 =====");
+        if (layers.isEmpty()) {
+            sender.sendMessage(ChatColor.YELLOW + "没有设置任何倍率 (均为 1.0)");
+        }
+        long now = System.currentTimeMillis();
+        for (MultiplierStack.Layer layer : layers) {
+            String target = layer.target;
+            if (layer.scope == MultiplierStack.Scope.PLAYER) {
+                Player player = Bukkit.getPlayer(UUID.fromString(layer.target));
+                target = player != null ? player.getName() : layer.target;
+            }
+            sender.sendMessage(ChatColor.GREEN + layer.scope.getDisplayName() + (target.isEmpty() ? "" : " " + target)
+                    + ": " + ChatColor.AQUA + "x" + layer.value
+                    + (layer.expiresAt > 0 ? ChatColor.GRAY + " (剩余 " + Durations.format(layer.expiresAt - now) + ")" : ""));
+        }
+        sender.sendMessage(ChatColor.GOLD + "===================");
+    }
+
+    // 按英文名称或显示名称解析来源
+    private static DropSource parseSource(String value) {
+        for (DropSource source : DropSource.values()) {
+            if (source.name().equalsIgnoreCase(value) || source.getDisplayName().equals(value)) {
+                return source;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,130 @@
+package com.chengju.customdrops.commands;
+
+import com.chengju.customdrops.CustomDropsPlugin;
+import com.chengju.customdrops.PluginConfiguration;
+import com.chengju.customdrops.logs.LogEntry;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * /cd search <掉落物> [起始时间] [结束时间] [页码]：查询谁在时间范围内获得过某种掉落物（跨玩家）。
+ * 时间格式为 yyyy-MM-dd 或 yyyy-MM-ddTHH:mm，默认为今天；掉落物名称可包含空格。
+ */
+public class SearchCommand {
+
+    // 记录时间显示格式
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final CustomDropsPlugin plugin;
+
+    public SearchCommand(CustomDropsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * @param args search 之后的参数
+     */
+    public boolean execute(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("customdrops.command.search")) {
+            sender.sendMessage(ChatColor.RED + "你没有权限使用此命令!");
+            return true;
+        }
+        if (args.length < 1) {
+            sender.sendMessage(ChatColor.RED + "用法: /cd search <掉落物> [起始时间] [结束时间] [页码]");
+            return true;
+        }
+
+        // 最后一个参数为数字时作为页码，其前最多两个可解析为时间的参数作为时间范围，其余为掉落物名称（可包含空格）
+        int nameEnd = args.length;
+        int page = 1;
+        if (nameEnd > 1) {
+            try {
+                page = Integer.parseInt(args[nameEnd - 1]);
+                nameEnd--;
+            } catch (NumberFormatException e) {
+                // 最后一个参数不是页码
+            }
+        }
+        int timeStart = nameEnd;
+        while (timeStart > 1 && nameEnd - timeStart < 2 && isTime(args[timeStart - 1])) {
+            timeStart--;
+        }
+        String itemName = String.join(" ", Arrays.copyOfRange(args, 0, timeStart));
+        String[] times = Arrays.copyOfRange(args, timeStart, nameEnd);
+
+        LocalDateTime start = times.length > 0 ? parseTime(times[0], false) : LocalDate.now().atStartOfDay();
+        LocalDateTime end = times.length > 1 ? parseTime(times[1], true) : LocalDateTime.now();
+        long from = start.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long to = end.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (from > to || page < 1 || page > PluginConfiguration.LogConfig.MAX_PAGE) {
+            sender.sendMessage(ChatColor.RED + "起始时间不能晚于结束时间，页码必须在 1 到 "
+                    + PluginConfiguration.LogConfig.MAX_PAGE + " 之间");
+            return true;
+        }
+
+        // 只读取到下一页的第一条为止，用于判断是否还有下一页
+        int pageSize = this.plugin.getConfigManager().getCurrentConfig().getLogs().pageSize;
+        sender.sendMessage(ChatColor.GRAY + "正在查询...");
+        int queryPage = page;
+        String range = times.length > 0 ? " " + String.join(" ", times) : "";
+        this.plugin.getLogManager().searchByDrop(itemName, from, to, page * pageSize + 1,
+                logs -> showPage(sender, itemName, range, logs, queryPage, pageSize));
+        return true;
+    }
+
+    // 参数是否为时间（yyyy-MM-dd 或 yyyy-MM-ddTHH:mm）
+    private static boolean isTime(String value) {
+        try {
+            parseTime(value, false);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    // 解析时间参数；只有日期时起始取当天开始，结束取当天结束
+    private static LocalDateTime parseTime(String value, boolean endOfDay) {
+        if (value.indexOf('T') > 0) {
+            return LocalDateTime.parse(value);
+        }
+        LocalDate date = LocalDate.parse(value);
+        return endOfDay ? date.plusDays(1).atStartOfDay().minusNanos(1) : date.atStartOfDay();
+    }
+
+    // 显示一页查询结果（logs 为时间范围内最早的若干条记录）
+    private void showPage(CommandSender sender, String itemName, String range, List<LogEntry> logs, int page, int pageSize) {
+        if (logs.isEmpty()) {
+            sender.sendMessage(ChatColor.YELLOW + "没有找到 " + itemName + " 的获取记录");
+            return;
+        }
+        int from = (page - 1) * pageSize;
+        if (from >= logs.size()) {
+            sender.sendMessage(ChatColor.RED + "页码超出范围，共 " + ((logs.size() + pageSize - 1) / pageSize) + " 页");
+            return;
+        }
+
+        int end = Math.min(logs.size(), from + pageSize);
+        sender.sendMessage(ChatColor.GOLD + "===== " + itemName + " 获取记录 (第" + page + "页) =====");
+        for (LogEntry entry : logs.subList(from, end)) {
+            String time = TIME_FORMAT.format(Instant.ofEpochMilli(entry.getTimestamp()).atZone(ZoneId.systemDefault()));
+            sender.sendMessage(ChatColor.GREEN + time + ChatColor.WHITE + ": " + ChatColor.AQUA + entry.getPlayerName()
+                    + ChatColor.GRAY + " (" + entry.getSource() + (entry.getWorld().isEmpty() ? "" : ", " + entry.getWorld()) + ")");
+        }
+        sender.sendMessage(ChatColor.GOLD + "===============================");
+        if (logs.size() > end) {
+            String next = range.isEmpty() ? " " + LocalDate.now() + " " + LocalDate.now() : range;
+            sender.sendMessage(ChatColor.GRAY + "输入 /cd search " + itemName + next + " " + (page + 1) + " 查看下一页");
+        } else {
+            sender.sendMessage(ChatColor.GRAY + "共找到 " + logs.size() + " 条记录");
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.chengju.customdrops.commands;
+
+import com.chengju.customdrops.CustomDropsPlugin;
+import com.chengju.customdrops.logs.LogWriter;
+import com.chengju.customdrops.stats.DropStatistics;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * /cd stats [掉落物] [小时数]：直接读取内存中的掉落统计，不扫描日志
+ */
+public class StatsCommand {
+
+    // 每个分组最多显示的条目数
+    private static final int MAX_ROWS = 10;
+
+    private final CustomDropsPlugin plugin;
+
+    public StatsCommand(CustomDropsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * @param args stats 之后的参数
+     */
+    public boolean execute(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("customdrops.command.stats")) {
+            sender.sendMessage(ChatColor.RED + "你没有权限使用此命令!");
+            return true;
+        }
+
+        // 默认统计最近24小时；最后一个参数为数字时作为小时数，其余为掉落物名称（可包含空格）
+        int hours = 24;
+        int nameEnd = args.length;
+        if (args.length > 0) {
+            try {
+                hours = Integer.parseInt(args[args.length - 1]);
+                nameEnd--;
+                if (hours < 1) {
+                    sender.sendMessage(ChatColor.RED + "小时数必须大于0");
+                    return true;
+                }
+            } catch (NumberFormatException e) {
+                // 最后一个参数是掉落物名称的一部分
+            }
+        }
+        String dropName = nameEnd > 0 ? String.join(" ", Arrays.copyOfRange(args, 0, nameEnd)) : null;
+
+        DropStatistics.Summary summary = this.plugin.getDropStatistics().query(dropName, hours);
+        sender.sendMessage(ChatColor.GOLD + "===== 掉落统计 (最近" + hours + "小时"
+                + (dropName != null ? " " + dropName : "") + ") =====");
+        if (summary.total == 0) {
+            sender.sendMessage(ChatColor.YELLOW + "没有掉落记录");
+        } else {
+            sender.sendMessage(ChatColor.GREEN + "总计: " + ChatColor.AQUA + summary.total);
+            if (dropName == null) {
+                showGroup(sender, "掉落物", summary.byDrop);
+            }
+            showGroup(sender, "来源", summary.bySource);
+            showGroup(sender, "世界", summary.byWorld);
+        }
+        showWriter(sender, this.plugin.getLogManager().getWriter());
+        return true;
+    }
+
+    // 显示日志写入队列的运行状态（写入线程未启动时不显示）
+    private static void showWriter(CommandSender sender, LogWriter writer) {
+        if (writer == null) {
+            return;
+        }
+        sender.sendMessage(ChatColor.GREEN + "日志写入:");
+        sender.sendMessage(ChatColor.GRAY + "  队列: " + ChatColor.AQUA + writer.getQueueDepth() + "/" + writer.getQueueCapacity()
+                + ChatColor.GRAY + " (" + writer.getOverflowPolicy() + ")");
+        sender.sendMessage(ChatColor.GRAY + "  已写入: " + ChatColor.AQUA + writer.getWritten()
+                + ChatColor.GRAY + " 条, 刷写 " + ChatColor.AQUA + writer.getFlushCount() + ChatColor.GRAY + " 次, 丢弃 "
+                + (writer.getDropped() > 0 ? ChatColor.RED : ChatColor.AQUA) + writer.getDropped() + ChatColor.GRAY + " 条");
+        sender.sendMessage(ChatColor.GRAY + "  刷写耗时: " + ChatColor.AQUA
+                + String.format("最近 %.1fms, 平均 %.1fms, 最长 %.1fms",
+                writer.getLastFlushMillis(), writer.getAverageFlushMillis(), writer.getMaxFlushMillis()));
+        if (writer.getFailedFlushes() > 0) {
+            sender.sendMessage(ChatColor.RED + "  写入失败: " + writer.getFailedFlushes() + " 次, "
+                    + writer.getFailedEntries() + " 条记录");
+        }
+    }
+
+    // 按次数从多到少显示一个分组
+    private static void showGroup(CommandSender sender, String title, Map<String, Long> counts) {
+        sender.sendMessage(ChatColor.GREEN + title + ":");
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(MAX_ROWS)
+                .forEach(count -> sender.sendMessage(ChatColor.GRAY + "  " + count.getKey() + ": "
+                        + ChatColor.AQUA + count.getValue()));
+        if (counts.size() > MAX_ROWS) {
+            sender.sendMessage(ChatColor.GRAY + "  ... 其余 " + (counts.size() - MAX_ROWS) + " 项");
+        }
+    }
+}
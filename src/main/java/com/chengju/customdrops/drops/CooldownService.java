@@ -0,0 +1,148 @@
+package com.chengju.customdrops.drops;
+
+import com.chengju.customdrops.tasks.TickClock;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * 统一的冷却服务：按名称注册冷却渠道（如挖矿触发间隔、各来源的获得冷却、单个掉落物的冷却），
+ * 每个在线玩家一个 long 数组保存各渠道的冷却结束时间（服务器刻，下标为渠道编号）。
+ * 每次事件只需查找一次玩家的冷却记录，之后各渠道的检查都只是数组访问。
+ * <p>
+ * 过期的冷却不需要清理（比较结束时间即可）；玩家退出时整条记录移除，占用的内存只与在线玩家数有关。
+ * 退出时仍有冷却未结束的玩家暂存到冷却结束为止，重新进入时恢复，不能通过重新登录绕过冷却。
+ * 冷却状态只在主线程访问；渠道编号在插件内共用，可在加载配置时（任意线程）预先解析。
+ */
+public class CooldownService implements Listener {
+
+    // 渠道名称 -> 渠道编号（所有实例共用，编号在插件运行期间保持不变）
+    private static final Map<String, Integer> CHANNELS = new HashMap<>();
+
+    private final TickClock clock;
+    // 在线玩家 -> 冷却记录
+    private final Map<UUID, PlayerCooldowns> players = new HashMap<>();
+    // 退出时仍有冷却未结束的玩家（冷却全部结束后移除）
+    private final Map<UUID, PlayerCooldowns> departed = new HashMap<>();
+
+    public CooldownService(TickClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * 获取（或注册）冷却渠道（只在启动和加载配置时调用，不在事件处理中调用）
+     * @param name 渠道名称
+     * @return 渠道编号
+     */
+    public static int channel(String name) {
+        synchronized (CHANNELS) {
+            Integer channel = CHANNELS.get(name);
+            if (channel == null) {
+                channel = CHANNELS.size();
+                CHANNELS.put(name, channel);
+            }
+            return channel;
+        }
+    }
+
+    // 当前服务器刻
+    public long now() {
+        return this.clock.now();
+    }
+
+    /**
+     * 获取玩家的冷却记录（没有时创建）
+     * @param playerId 玩家UUID
+     */
+    public PlayerCooldowns get(UUID playerId) {
+        return this.players.computeIfAbsent(playerId, id -> new PlayerCooldowns());
+    }
+
+    // 玩家进入时恢复退出前未结束的冷却
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        UUID playerId = event.getPlayer().getUniqueId();
+        PlayerCooldowns cooldowns = this.departed.remove(playerId);
+        if (cooldowns != null) {
+            this.players.put(playerId, cooldowns);
+        }
+    }
+
+    // 玩家退出时移除其冷却，仍有未结束的冷却时暂存
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        long now = now();
+        this.departed.values().removeIf(cooldowns -> cooldowns.latest() <= now);
+        PlayerCooldowns cooldowns = this.players.remove(event.getPlayer().getUniqueId());
+        if (cooldowns != null && cooldowns.latest() > now) {
+            this.departed.put(event.getPlayer().getUniqueId(), cooldowns);
+        }
+    }
+
+    // 清除所有冷却（插件禁用时调用）
+    public void clear() {
+        this.players.clear();
+        this.departed.clear();
+    }
+
+    /**
+     * 一个玩家各渠道的冷却结束时间（服务器刻）
+     */
+    public static final class PlayerCooldowns {
+        private long[] expiries = new long[4];
+
+        /**
+         * 是否处于冷却中
+         * @param channel 渠道编号
+         * @param now 当前服务器刻
+         */
+        public boolean isActive(int channel, long now) {
+            return channel < this.expiries.length && now < this.expiries[channel];
+        }
+
+        /**
+         * 开始（或重新开始）冷却
+         * @param channel 渠道编号
+         * @param now 当前服务器刻
+         * @param duration 冷却刻数，不大于0时不设置冷却
+         */
+        public void start(int channel, long now, long duration) {
+            if (duration <= 0) {
+                return;
+            }
+            if (channel >= this.expiries.length) {
+                this.expiries = Arrays.copyOf(this.expiries, Math.max(channel + 1, this.expiries.length * 2));
+            }
+            this.expiries[channel] = now + duration;
+        }
+
+        /**
+         * 不在冷却中时开始冷却（用于触发间隔）
+         * @return 是否不在冷却中（即本次触发有效）
+         */
+        public boolean tryStart(int channel, long now, long duration) {
+            if (isActive(channel, now)) {
+                return false;
+            }
+            start(channel, now, duration);
+            return true;
+        }
+
+        // 最晚结束的冷却
+        long latest() {
+            long latest = 0L;
+            for (long expiry : this.expiries) {
+                latest = Math.max(latest, expiry);
+            }
+            return latest;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.chengju.customdrops.drops;
+
+import com.chengju.customdrops.CustomDropsPlugin;
+import com.chengju.customdrops.PluginConfiguration;
+import com.chengju.customdrops.actions.ActionContext;
+import com.chengju.customdrops.actions.DropAction;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.bukkit.entity.Player;
+
+/**
+ * 掉落引擎：统一处理所有来源（挖矿/钓鱼/食用/附魔）的倍率、冷却、随机判定与动作执行。
+ * 监听器只负责从事件中筛选出适用的掉落表，然后交给引擎处理。
+ */
+public class DropEngine {
+
+    // 插件主类引用
+    private final CustomDropsPlugin plugin;
+    // 分层倍率（/ip 设置，保存在 multipliers.yml 中，热重载和重启后保留）
+    private final MultiplierStack multipliers;
+
+    // 冷却服务（挖矿触发间隔、获得冷却、掉落物冷却）
+    private final CooldownService cooldowns;
+    // 挖矿触发间隔渠道
+    private final int digChannel;
+    // 所有来源共用的获得冷却渠道
+    private final int grantChannel;
+    // 各来源单独的获得冷却渠道（下标为 DropSource.ordinal()，配置中单独设置了冷却时使用）
+    private final int[] sourceGrantChannels = new int[DropSource.values().length];
+
+    public DropEngine(CustomDropsPlugin plugin) {
+        this.plugin = plugin;
+        this.cooldowns = new CooldownService(plugin.getTickClock());
+        this.multipliers = new MultiplierStack(plugin, new File(plugin.getDataFolder(), "multipliers.yml"));
+        this.multipliers.load();
+        this.digChannel = CooldownService.channel("dig");
+        this.grantChannel = CooldownService.channel("grant");
+        for (DropSource source : DropSource.values()) {
+            this.sourceGrantChannels[source.ordinal()] = CooldownService.channel("grant:" + source.name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    // 获取冷却服务（需注册为监听器，玩家退出时清除其冷却）
+    public CooldownService getCooldowns() {
+        return this.cooldowns;
+    }
+
+    // 获取当前生效的配置
+    public PluginConfiguration getConfig() {
+        return this.plugin.getConfigManager().getCurrentConfig();
+    }
+
+    // 获取分层倍率（需注册为监听器，玩家退出时清除其缓存）
+    public MultiplierStack getMultipliers() {
+        return this.multipliers;
+    }
+
+    /**
+     * 玩家的实际概率倍率 = 全局 × 世界 × 来源 × 玩家 × 限时加成 × 玩家权限倍率（已预先计算）
+     * @param player 玩家对象
+     * @param source 掉落来源
+     */
+    public double getEffectiveMultiplier(Player player, DropSource source) {
+        return this.multipliers.get(player, source);
+    }
+
+    // 处理只有一个候选掉落表的触发
+    public boolean trigger(DropTrigger trigger, DropTable<? extends PluginConfiguration.DropConfig> table) {
+        return trigger(trigger, Collections.singletonList(table));
+    }
+
+    /**
+     * 处理一次掉落触发：按顺序尝试各掉落表，第一个命中的生效（每次触发最多一个掉落）
+     * @param trigger 触发信息
+     * @param tables 候选掉落表（按优先级排列）
+     * @return 是否获得了掉落
+     */
+    public boolean trigger(DropTrigger trigger, List<? extends DropTable<? extends PluginConfiguration.DropConfig>> tables) {
+        Player player = trigger.getPlayer();
+        PluginConfiguration.CooldownConfig cooldownConfig = getConfig().getCooldowns();
+        // 每次事件只读取一次时钟、查找一次玩家的冷却记录
+        long now = this.cooldowns.now();
+        CooldownService.PlayerCooldowns playerCooldowns = this.cooldowns.get(player.getUniqueId());
+
+        // 挖矿触发间隔检测（通过时刷新触发时间）
+        if (trigger.getSource() == DropSource.DIG
+                && !playerCooldowns.tryStart(this.digChannel, now, cooldownConfig.digInterval)) {
+            return false;
+        }
+
+        // 没有候选掉落时无需继续
+        boolean hasCandidates = false;
+        for (DropTable<?> table : tables) {
+            if (!table.isEmpty()) {
+                hasCandidates = true;
+                break;
+            }
+        }
+        if (!hasCandidates) {
+            return false;
+        }
+
+        // 防刷检查
+        if (playerCooldowns.isActive(grantChannel(cooldownConfig, trigger.getSource()), now)) {
+            return false;
+        }
+
+        // 实际概率 = 基础概率 × 分层倍率 × 玩家倍率（上限100%）
+        double multiplier = getEffectiveMultiplier(player, trigger.getSource());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (DropTable<? extends PluginConfiguration.DropConfig> table : tables) {
+            PluginConfiguration.DropConfig dropConfig = table.roll(multiplier, random);
+            if (dropConfig == null) {
+                continue;
+            }
+            // 掉落物自身的冷却未结束时本次判定无效
+            if (dropConfig.cooldown > 0 && playerCooldowns.isActive(dropConfig.cooldownChannel, now)) {
+                continue;
+            }
+            grant(trigger, dropConfig, multiplier);
+            setCooldown(playerCooldowns, now, cooldownConfig, trigger.getSource(), dropConfig);
+            return true;
+        }
+        return false;
+    }
+
+    // 获得冷却渠道：来源单独设置了冷却时使用该来源的渠道，否则使用共用渠道
+    private int grantChannel(PluginConfiguration.CooldownConfig cooldownConfig, DropSource source) {
+        return cooldownConfig.hasSourceGrant(source) ? this.sourceGrantChannels[source.ordinal()] : this.grantChannel;
+    }
+
+    // 发放掉落：记录日志、执行动作
+    private void grant(DropTrigger trigger, PluginConfiguration.DropConfig dropConfig, double multiplier) {
+        Player player = trigger.getPlayer();
+        ActionContext context = new ActionContext(player, dropConfig.dropName, trigger.getSource().getDisplayName(),
+                trigger.getLocation(), trigger.getKey(), multiplier);
+
+        // 记录日志系统（玩家、物品、来源），在执行动作之前写入发放日志
+        long sequence = this.plugin.getLogManager().logItemObtained(player, dropConfig.dropName, context.getSource());
+        this.plugin.getDropStatistics().record(context.getSource(), dropConfig.dropName, player.getWorld().getName(),
+                System.currentTimeMillis());
+
+        // 执行所有配置的动作
+        for (DropAction action : dropConfig.actions) {
+            try {
+                action.execute(context);
+            } catch (Exception e) {
+                this.plugin.getLogger().warning("执行动作时出错: " + action);
+                e.printStackTrace();
+            }
+        }
+
+        this.plugin.getLogManager().completeGrant(sequence);
+    }
+
+    // 设置获得掉落后的冷却（来源的获得冷却，以及掉落物自身的冷却）
+    private void setCooldown(CooldownService.PlayerCooldowns playerCooldowns, long now,
+                             PluginConfiguration.CooldownConfig cooldownConfig, DropSource source,
+                             PluginConfiguration.DropConfig dropConfig) {
+        playerCooldowns.start(grantChannel(cooldownConfig, source), now, cooldownConfig.getGrant(source));
+        if (dropConfig.cooldown > 0) {
+            playerCooldowns.start(dropConfig.cooldownChannel, now, dropConfig.cooldown);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.chengju.customdrops.drops;
+
+/**
+ * 掉落来源
+ */
+public enum DropSource {
+    DIG("挖矿"),
+    FISHING("钓鱼"),
+    CONSUME("食用"),
+    ENCHANT("附魔");
+
+    // 显示名称（用于日志与占位符）
+    private final String displayName;
+
+    DropSource(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,241 @@
+package com.chengju.customdrops.drops;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 编译后的掉落表。
+ * <p>
+ * 配置中的掉落规则语义为"按配置顺序逐个判定概率，第一个命中的生效"。
+ * 该语义等价于一个离散分布：第 i 项被选中的概率为 p[i] * Π(1 - p[j]), j < i，
+ * 剩余概率为"不掉落"。本类将其编译为 Vose 别名表，一次随机数即可在 O(1) 内决定结果。
+ * <p>
+ * 倍率不会逐项重新计算：倍率按 0.0001 量化后，每档倍率对应的别名表只构建一次并缓存复用。
+ *
+ * @param <T> 掉落项类型
+ */
+public final class DropTable<T> {
+
+    // 每个掉落表缓存的倍率数量（倍率通常只有全局倍率 × 少数几档权限加成）
+    private static final int SCALED_CACHE_SIZE = 8;
+    // 倍率量化精度，避免浮点误差产生大量只差末位的倍率
+    private static final double SCALE_QUANTUM = 10000.0D;
+    // 每个掉落表最多缓存的子表数量
+    private static final int SUBSET_CACHE_SIZE = 64;
+
+    private static final DropTable<?> EMPTY = new DropTable<>(Collections.emptyList(), new double[0]);
+
+    // 掉落项（按配置顺序）
+    private final List<T> entries;
+    // 基础概率（0.0-1.0）
+    private final double[] chances;
+    // 已按倍率缩放的别名表缓存（写时复制，读无锁）
+    private volatile Scaled[] scaledCache = new Scaled[0];
+    // 只包含部分掉落项的子表缓存（用于附魔等需要按条件过滤的场景）
+    private final Map<BitSet, DropTable<T>> subsets = new ConcurrentHashMap<>();
+
+    public DropTable(List<T> entries, double[] chances) {
+        if (entries.size() != chances.length) {
+            throw new IllegalArgumentException("掉落项数量与概率数量不一致");
+        }
+        this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+        this.chances = chances.clone();
+    }
+
+    // 从掉落项列表构建掉落表（保持列表顺序）
+    public static <T> DropTable<T> of(List<T> entries, ToDoubleFunction<T> chance) {
+        double[] chances = new double[entries.size()];
+        for (int i = 0; i < chances.length; i++) {
+            chances[i] = chance.applyAsDouble(entries.get(i));
+        }
+        return new DropTable<>(entries, chances);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> DropTable<T> empty() {
+        return (DropTable<T>) EMPTY;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public List<T> getEntries() {
+        return entries;
+    }
+
+    /**
+     * 抽取一次掉落。每项的实际概率为 min(1, 基础概率 × scale)。
+     *
+     * @param scale 概率倍率
+     * @param random 随机数生成器（只调用一次）
+     * @return 命中的掉落项，未命中返回 null
+     */
+    public T roll(double scale, Random random) {
+        if (entries.isEmpty()) {
+            return null;
+        }
+        int index = scaled(scale).sample(random);
+        return index < 0 ? null : entries.get(index);
+    }
+
+    /**
+     * 获取只包含指定掉落项的子表（保持原顺序）。
+     *
+     * @param eligible 需要保留的掉落项下标
+     */
+    public DropTable<T> subset(BitSet eligible) {
+        if (eligible.cardinality() == entries.size()) {
+            return this;
+        }
+        DropTable<T> cached = subsets.get(eligible);
+        if (cached != null) {
+            return cached;
+        }
+        List<T> subEntries = new ArrayList<>(eligible.cardinality());
+        double[] subChances = new double[eligible.cardinality()];
+        int n = 0;
+        for (int i = eligible.nextSetBit(0); i >= 0 && i < entries.size(); i = eligible.nextSetBit(i + 1)) {
+            subEntries.add(entries.get(i));
+            subChances[n++] = chances[i];
+        }
+        DropTable<T> subset = new DropTable<>(subEntries, subChances);
+        // 组合数超过上限时不再缓存，避免条件组合过多导致内存无限增长
+        if (subsets.size() < SUBSET_CACHE_SIZE) {
+            subsets.putIfAbsent((BitSet) eligible.clone(), subset);
+        }
+        return subset;
+    }
+
+    // 获取（或构建）指定倍率下的别名表
+    private Scaled scaled(double scale) {
+        long key = Math.round(scale * SCALE_QUANTUM);
+        Scaled[] cache = this.scaledCache;
+        for (int i = 0; i < cache.length; i++) {
+            Scaled scaled = cache[i];
+            if (scaled.key == key) {
+                if (i > 0) {
+                    // 命中时移到最前，保证淘汰的是最久未使用的倍率
+                    Scaled[] updated = cache.clone();
+                    System.arraycopy(cache, 0, updated, 1, i);
+                    updated[0] = scaled;
+                    this.scaledCache = updated;
+                }
+                return scaled;
+            }
+        }
+
+        Scaled scaled = new Scaled(key, chances);
+        // 最近使用的放在最前，超出容量时淘汰最久未使用的
+        Scaled[] updated = new Scaled[Math.min(cache.length + 1, SCALED_CACHE_SIZE)];
+        updated[0] = scaled;
+        System.arraycopy(cache, 0, updated, 1, updated.length - 1);
+        this.scaledCache = updated;
+        return scaled;
+    }
+
+    // 某一倍率下的 Vose 别名表，最后一列表示"不掉落"
+    private static final class Scaled {
+        // 量化后的倍率
+        final long key;
+        final double[] probability;
+        final int[] alias;
+        // 所有掉落项概率均为0时无需抽取
+        final boolean never;
+
+        Scaled(long key, double[] chances) {
+            this.key = key;
+            double scale = key / SCALE_QUANTUM;
+
+            int n = chances.length;
+            int k = n + 1;
+            double[] weights = new double[k];
+            double remaining = 1.0D;
+            for (int i = 0; i < n; i++) {
+                double actual = chances[i] * scale;
+                // 概率限制在 [0, 1]
+                actual = Math.max(0.0D, Math.min(1.0D, actual));
+                weights[i] = remaining * actual;
+                remaining -= weights[i];
+            }
+            weights[n] = Math.max(0.0D, remaining);
+            this.never = weights[n] >= 1.0D;
+
+            this.probability = new double[k];
+            this.alias = new int[k];
+            buildAlias(weights, this.probability, this.alias);
+        }
+
+        // Vose 别名法构建
+        private static void buildAlias(double[] weights, double[] probability, int[] alias) {
+            int k = weights.length;
+            double total = 0.0D;
+            for (double weight : weights) {
+                total += weight;
+            }
+
+            double[] scaled = new double[k];
+            int[] small = new int[k];
+            int[] large = new int[k];
+            int smallSize = 0;
+            int largeSize = 0;
+            for (int i = 0; i < k; i++) {
+                scaled[i] = weights[i] / total * k;
+                if (scaled[i] < 1.0D) {
+                    small[smallSize++] = i;
+                } else {
+                    large[largeSize++] = i;
+                }
+            }
+
+            while (smallSize > 0 && largeSize > 0) {
+                int less = small[--smallSize];
+                int more = large[--largeSize];
+                probability[less] = scaled[less];
+                alias[less] = more;
+                scaled[more] = (scaled[more] + scaled[less]) - 1.0D;
+                if (scaled[more] < 1.0D) {
+                    small[smallSize++] = more;
+                } else {
+                    large[largeSize++] = more;
+                }
+            }
+            // 剩余项（含浮点误差）概率视为1
+            while (largeSize > 0) {
+                int index = large[--largeSize];
+                probability[index] = 1.0D;
+                alias[index] = index;
+            }
+            while (smallSize > 0) {
+                int index = small[--smallSize];
+                probability[index] = 1.0D;
+                alias[index] = index;
+            }
+        }
+
+        // 抽样：返回掉落项下标，-1 表示不掉落
+        int sample(Random random) {
+            if (never) {
+                return -1;
+            }
+            int k = probability.length;
+            double u = random.nextDouble() * k;
+            int column = (int) u;
+            if (column >= k) {
+                column = k - 1;
+            }
+            int index = (u - column) < probability[column] ? column : alias[column];
+            return index == k - 1 ? -1 : index;
+        }
+    }
+}
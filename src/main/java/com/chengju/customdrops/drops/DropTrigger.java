@@ -0,0 +1,45 @@
+package com.chengju.customdrops.drops;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+
+/**
+ * 一次掉落触发（由各监听器构建后交给 {@link DropEngine} 处理）
+ */
+public final class DropTrigger {
+
+    private final Player player;
+    private final DropSource source;
+    private final Material key;
+    private final Location location;
+
+    /**
+     * @param player 触发的玩家
+     * @param source 掉落来源
+     * @param key 触发的方块/物品类型（挖矿为方块，食用为食物，附魔为被附魔物品，钓鱼为 null）
+     * @param location 触发位置（为 null 时使用玩家位置）
+     */
+    public DropTrigger(Player player, DropSource source, Material key, Location location) {
+        this.player = player;
+        this.source = source;
+        this.key = key;
+        this.location = location;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public DropSource getSource() {
+        return source;
+    }
+
+    public Material getKey() {
+        return key;
+    }
+
+    public Location getLocation() {
+        return location;
+    }
+}
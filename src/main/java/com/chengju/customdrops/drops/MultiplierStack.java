@@ -0,0 +1,395 @@
+package com.chengju.customdrops.drops;
+
+import com.chengju.customdrops.CustomDropsPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * 分层的概率倍率：全局、世界、来源、玩家四种范围，每种范围可以有一个固定倍率和若干限时加成。
+ * 玩家的实际倍率 = 所有适用层的乘积 × 进行中的定时活动倍率 × 玩家权限倍率。
+ * <p>
+ * 每个在线玩家按（所在世界, 来源）缓存计算好的倍率，掉落判定时只读取一个 double；
+ * 任何一层变化时版本号加一，缓存在下次读取时重新计算。限时加成由一个定时任务在最早到期的时刻统一移除。
+ * 倍率保存在 multipliers.yml 中，重启后仍然有效：修改后在主线程生成内容，在异步任务中写入临时文件再替换。
+ * 除保存文件外只在主线程访问。
+ */
+public class MultiplierStack implements Listener {
+
+    /**
+     * 倍率的作用范围
+     */
+    public enum Scope {
+        GLOBAL("全局"),
+        WORLD("世界"),
+        SOURCE("来源"),
+        PLAYER("玩家");
+
+        private final String displayName;
+
+        Scope(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    /**
+     * 一层倍率（不可变）
+     */
+    public static final class Layer {
+        public final Scope scope;
+        // 作用对象：世界名、来源（dig/fishing/consume/enchant）或玩家UUID，全局为空字符串
+        public final String target;
+        public final double value;
+        // 到期时间（毫秒时间戳），0表示固定倍率
+        public final long expiresAt;
+
+        public Layer(Scope scope, String target, double value, long expiresAt) {
+            this.scope = scope;
+            this.target = target;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        // 是否适用于该玩家在该世界、该来源的掉落
+        boolean applies(UUID playerId, String world, DropSource source) {
+            switch (scope) {
+                case WORLD:
+                    return target.equals(world);
+                case SOURCE:
+                    return target.equals(sourceKey(source));
+                case PLAYER:
+                    return target.equals(playerId.toString());
+                default:
+                    return true;
+            }
+        }
+    }
+
+    private final CustomDropsPlugin plugin;
+    private final File file;
+    // 固定倍率（范围:对象 -> 倍率层）
+    private final Map<String, Layer> fixed = new LinkedHashMap<>();
+    // 限时加成（按添加顺序）
+    private final List<Layer> boosts = new ArrayList<>();
+    // 进行中的定时活动的倍率（下标为 DropSource.ordinal()，由活动调度器设置，不保存）
+    private final double[] eventMultipliers = new double[DropSource.values().length];
+    // 任何一层变化时加一
+    private long version;
+    // 在线玩家 -> 缓存的倍率
+    private final Map<UUID, CachedMultipliers> cache = new HashMap<>();
+    // 移除到期加成的任务（没有限时加成时为 null）
+    private BukkitTask expiryTask;
+    // 保存代数：每次保存加一（主线程）；异步写入时跳过比已写入内容旧的快照
+    private long saveGeneration;
+    private final Object saveLock = new Object();
+    // 已写入文件的保存代数（受 saveLock 保护）
+    private long writtenGeneration;
+
+    public MultiplierStack(CustomDropsPlugin plugin, File file) {
+        this.plugin = plugin;
+        this.file = file;
+        Arrays.fill(this.eventMultipliers, 1.0D);
+    }
+
+    // 来源在倍率配置中的名称
+    public static String sourceKey(DropSource source) {
+        return source.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 获取玩家在当前世界、某个来源的实际倍率（含权限倍率）
+     * @param player 玩家对象
+     * @param source 掉落来源
+     */
+    public double get(Player player, DropSource source) {
+        String world = player.getWorld().getName();
+        CachedMultipliers cached = this.cache.get(player.getUniqueId());
+        if (cached == null || cached.version != this.version || !cached.world.equals(world)) {
+            cached = compute(player, world);
+            this.cache.put(player.getUniqueId(), cached);
+        }
+        return cached.bySource[source.ordinal()];
+    }
+
+    private CachedMultipliers compute(Player player, String world) {
+        double bonus = this.plugin.getPlayerBonusMultiplier(player);
+        double[] bySource = new double[DropSource.values().length];
+        for (DropSource source : DropSource.values()) {
+            double multiplier = bonus * this.eventMultipliers[source.ordinal()];
+            for (Layer layer : this.fixed.values()) {
+                if (layer.applies(player.getUniqueId(), world, source)) {
+                    multiplier *= layer.value;
+                }
+            }
+            for (Layer layer : this.boosts) {
+                if (layer.applies(player.getUniqueId(), world, source)) {
+                    multiplier *= layer.value;
+                }
+            }
+            bySource[source.ordinal()] = multiplier;
+        }
+        return new CachedMultipliers(this.version, world, bySource);
+    }
+
+    /**
+     * 设置固定倍率，倍率为1.0时移除该层
+     * @param scope 范围
+     * @param target 作用对象（全局为空字符串）
+     * @param value 倍率
+     */
+    public void set(Scope scope, String target, double value) {
+        String key = scope + ":" + target;
+        if (value == 1.0D) {
+            this.fixed.remove(key);
+        } else {
+            this.fixed.put(key, new Layer(scope, target, value, 0L));
+        }
+        changed();
+    }
+
+    /**
+     * 添加限时加成（与其他层相乘）
+     * @param duration 持续时间（毫秒）
+     */
+    public void boost(Scope scope, String target, double value, long duration) {
+        this.boosts.add(new Layer(scope, target, value, System.currentTimeMillis() + duration));
+        changed();
+    }
+
+    /**
+     * 移除所有限时加成
+     * @return 移除的数量
+     */
+    public int clearBoosts() {
+        int count = this.boosts.size();
+        this.boosts.clear();
+        changed();
+        return count;
+    }
+
+    /**
+     * 设置进行中的定时活动的倍率（活动开始或结束时调用）
+     * @param multipliers 各来源的倍率（下标为 DropSource.ordinal()）
+     */
+    public void setEventMultipliers(double[] multipliers) {
+        if (Arrays.equals(this.eventMultipliers, multipliers)) {
+            return;
+        }
+        System.arraycopy(multipliers, 0, this.eventMultipliers, 0, this.eventMultipliers.length);
+        this.version++;
+    }
+
+    // 固定的全局倍率
+    public double getGlobal() {
+        Layer layer = this.fixed.get(Scope.GLOBAL + ":");
+        return layer != null ? layer.value : 1.0D;
+    }
+
+    // 所有固定倍率和限时加成
+    public List<Layer> getLayers() {
+        List<Layer> layers = new ArrayList<>(this.fixed.values());
+        layers.addAll(this.boosts);
+        return Collections.unmodifiableList(layers);
+    }
+
+    // 使某个玩家的缓存失效（权限倍率变化时调用）
+    public void invalidate(UUID playerId) {
+        this.cache.remove(playerId);
+    }
+
+    private void changed() {
+        this.version++;
+        save();
+        scheduleExpiry();
+    }
+
+    // 在最早的限时加成到期时移除到期的加成
+    private void scheduleExpiry() {
+        if (this.expiryTask != null) {
+            this.expiryTask.cancel();
+            this.expiryTask = null;
+        }
+        long earliest = Long.MAX_VALUE;
+        for (Layer layer : this.boosts) {
+            earliest = Math.min(earliest, layer.expiresAt);
+        }
+        if (earliest == Long.MAX_VALUE || !this.plugin.isEnabled()) {
+            return;
+        }
+        long delay = Math.max(1L, (earliest - System.currentTimeMillis() + 49L) / 50L);
+        this.expiryTask = this.plugin.getServer().getScheduler().runTaskLater(this.plugin, this::expire, delay);
+    }
+
+    private void expire() {
+        this.expiryTask = null;
+        long now = System.currentTimeMillis();
+        List<Layer> expired = new ArrayList<>();
+        this.boosts.removeIf(layer -> {
+            if (layer.expiresAt > now) {
+                return false;
+            }
+            expired.add(layer);
+            return true;
+        });
+        for (Layer layer : expired) {
+            this.plugin.getLogger().info("限时倍率加成已结束: " + layer.scope.getDisplayName()
+                    + (layer.target.isEmpty() ? "" : " " + layer.target) + " x" + layer.value);
+        }
+        changed();
+    }
+
+    /**
+     * 读取保存的倍率（启动时调用），已到期的加成被丢弃
+     */
+    public void load() {
+        if (!this.file.exists()) {
+            return;
+        }
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(this.file);
+        long now = System.currentTimeMillis();
+        ConfigurationSection fixedSection = config.getConfigurationSection("fixed");
+        if (fixedSection != null) {
+            for (String key : fixedSection.getKeys(false)) {
+                Layer layer = readLayer(fixedSection.getConfigurationSection(key));
+                if (layer != null) {
+                    this.fixed.put(layer.scope + ":" + layer.target, layer);
+                }
+            }
+        }
+        ConfigurationSection boostsSection = config.getConfigurationSection("boosts");
+        if (boostsSection != null) {
+            for (String key : boostsSection.getKeys(false)) {
+                Layer layer = readLayer(boostsSection.getConfigurationSection(key));
+                if (layer != null && layer.expiresAt > now) {
+                    this.boosts.add(layer);
+                }
+            }
+        }
+        this.version++;
+        scheduleExpiry();
+    }
+
+    private Layer readLayer(ConfigurationSection section) {
+        if (section == null) {
+            return null;
+        }
+        try {
+            return new Layer(Scope.valueOf(section.getString("scope", "GLOBAL")), section.getString("target", ""),
+                    section.getDouble("value", 1.0D), section.getLong("expires", 0L));
+        } catch (IllegalArgumentException e) {
+            this.plugin.getLogger().warning("忽略无效的倍率: " + section.getCurrentPath());
+            return null;
+        }
+    }
+
+    // 保存所有倍率：在主线程生成内容，异步写入文件（插件已禁用时直接写入）
+    private void save() {
+        String content = serialize();
+        long generation = ++this.saveGeneration;
+        if (!this.plugin.isEnabled()) {
+            write(content, generation);
+            return;
+        }
+        this.plugin.getServer().getScheduler().runTaskAsynchronously(this.plugin, () -> write(content, generation));
+    }
+
+    /**
+     * 写入倍率文件（先写临时文件再替换，可在异步任务中调用）
+     * @param generation 内容的保存代数，已写入更新的内容时跳过
+     */
+    private void write(String content, long generation) {
+        synchronized (this.saveLock) {
+            if (generation <= this.writtenGeneration) {
+                return;
+            }
+            File temp = new File(this.file.getParentFile(), this.file.getName() + ".tmp");
+            try {
+                Files.write(temp.toPath(), content.getBytes(StandardCharsets.UTF_8));
+                Files.move(temp.toPath(), this.file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                this.writtenGeneration = generation;
+            } catch (IOException e) {
+                this.plugin.getLogger().warning("保存倍率失败: " + e.getMessage());
+            }
+        }
+    }
+
+    // 生成 multipliers.yml 的内容（在主线程调用）
+    private String serialize() {
+        YamlConfiguration config = new YamlConfiguration();
+        int index = 0;
+        for (Layer layer : this.fixed.values()) {
+            writeLayer(config, "fixed." + index++, layer);
+        }
+        index = 0;
+        for (Layer layer : this.boosts) {
+            writeLayer(config, "boosts." + index++, layer);
+        }
+        return config.saveToString();
+    }
+
+    private static void writeLayer(YamlConfiguration config, String path, Layer layer) {
+        config.set(path + ".scope", layer.scope.name());
+        config.set(path + ".target", layer.target);
+        config.set(path + ".value", layer.value);
+        if (layer.expiresAt > 0) {
+            config.set(path + ".expires", layer.expiresAt);
+        }
+    }
+
+    // 玩家退出时移除缓存
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        this.cache.remove(event.getPlayer().getUniqueId());
+    }
+
+    // 停止到期任务、写入尚未完成的保存并清除缓存（插件禁用时调用）
+    public void close() {
+        if (this.expiryTask != null) {
+            this.expiryTask.cancel();
+            this.expiryTask = null;
+        }
+        if (this.saveGeneration > 0) {
+            write(serialize(), this.saveGeneration);
+        }
+        this.cache.clear();
+    }
+
+    // 一个玩家在某个世界各来源的倍率
+    private static final class CachedMultipliers {
+        final long version;
+        final String world;
+        // 下标为 DropSource.ordinal()
+        final double[] bySource;
+
+        CachedMultipliers(long version, String world, double[] bySource) {
+            this.version = version;
+            this.world = world;
+            this.bySource = bySource;
+        }
+    }
+}
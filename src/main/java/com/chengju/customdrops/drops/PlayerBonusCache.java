@@ -0,0 +1,137 @@
+package com.chengju.customdrops.drops;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.permissions.PermissionAttachmentInfo;
+
+/**
+ * 在线玩家的权限加成倍率（cu.drop.XXX，XXX为百分比，取最高值）。
+ * <p>
+ * 玩家进入时计算一次，退出时移除；权限可能在游戏中变化，由定时任务在主线程低频重新计算
+ * （Bukkit 的权限接口不是线程安全的）。掉落判定时只读取预先计算好的倍率，不再遍历权限。
+ * 只在主线程访问。
+ */
+public class PlayerBonusCache implements Listener {
+
+    // 权限格式：cu.drop.XXX
+    private static final Pattern BONUS_PERMISSION = Pattern.compile("cu\\.drop\\.(\\d+)");
+
+    // 在线玩家 -> 加成倍率
+    private final Map<UUID, Bonus> bonuses = new HashMap<>();
+    // 玩家的加成倍率变化时调用（使依赖它的缓存失效）
+    private final Consumer<UUID> onChange;
+
+    public PlayerBonusCache(Consumer<UUID> onChange) {
+        this.onChange = onChange;
+    }
+
+    /**
+     * 获取玩家的加成倍率（无加成权限时为1.0）
+     * @param player 玩家对象
+     */
+    public double get(Player player) {
+        Bonus bonus = this.bonuses.get(player.getUniqueId());
+        if (bonus == null) {
+            // 插件启用前已在线的玩家
+            bonus = new Bonus(calculate(player));
+            this.bonuses.put(player.getUniqueId(), bonus);
+        }
+        return bonus.multiplier;
+    }
+
+    /**
+     * 重新计算玩家的加成倍率（权限变更后调用）
+     * @param player 玩家对象
+     * @return 是否发生了变化
+     */
+    public boolean refresh(Player player) {
+        double multiplier = calculate(player);
+        Bonus bonus = this.bonuses.get(player.getUniqueId());
+        if (bonus == null) {
+            this.bonuses.put(player.getUniqueId(), new Bonus(multiplier));
+            return true;
+        }
+        if (bonus.multiplier == multiplier) {
+            return false;
+        }
+        bonus.multiplier = multiplier;
+        this.onChange.accept(player.getUniqueId());
+        return true;
+    }
+
+    /**
+     * 重新计算所有在线玩家的加成倍率
+     * @param players 在线玩家
+     * @return 发生变化的玩家数
+     */
+    public int refreshAll(Iterable<? extends Player> players) {
+        int changed = 0;
+        for (Player player : players) {
+            if (refresh(player)) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    // 计算玩家权限倍率（无加成权限时为1.0）
+    private static double calculate(Player player) {
+        double maxMultiplier = 1.0D;
+        for (PermissionAttachmentInfo permissionInfo : player.getEffectivePermissions()) {
+            if (!permissionInfo.getValue()) {
+                continue;
+            }
+            String permission = permissionInfo.getPermission();
+            if (!permission.startsWith("cu.drop.")) {
+                continue;
+            }
+            Matcher matcher = BONUS_PERMISSION.matcher(permission);
+            if (matcher.matches()) {
+                try {
+                    double multiplier = Integer.parseInt(matcher.group(1)) / 100.0D; // 百分比转换为倍率
+                    maxMultiplier = Math.max(maxMultiplier, multiplier); // 保留最高倍率
+                } catch (NumberFormatException e) {
+                    // 忽略格式错误的权限
+                }
+            }
+        }
+        return maxMultiplier;
+    }
+
+    // 玩家进入时计算加成（权限插件已在登录阶段设置好权限）
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        refresh(event.getPlayer());
+    }
+
+    // 玩家退出时移除
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        this.bonuses.remove(event.getPlayer().getUniqueId());
+    }
+
+    // 清除所有缓存（插件禁用时调用）
+    public void clear() {
+        this.bonuses.clear();
+    }
+
+    // 预先计算的倍率
+    private static final class Bonus {
+        double multiplier;
+
+        Bonus(double multiplier) {
+            this.multiplier = multiplier;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.chengju.customdrops.events;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+
+/**
+ * 简化的 cron 表达式："分 时 日 月 周"（服务器本地时间）。
+ * 每个字段支持 *、数字、范围 a-b、列表 a,b 以及步长（*&#47;n、a-b/n）；周的取值为 0-7（0和7都表示周日）。
+ * 与标准 cron 一致，日和周都不是 * 时满足其中之一即可。
+ */
+public final class CronExpression {
+
+    // 向后查找的最长时间
+    private static final int SEARCH_YEARS = 5;
+
+    private final String expression;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet days;
+    private final BitSet months;
+    private final BitSet weekdays;
+    private final boolean anyDay;
+    private final boolean anyWeekday;
+
+    private CronExpression(String expression, String[] fields) {
+        this.expression = expression;
+        this.minutes = parseField(fields[0], 0, 59, "分");
+        this.hours = parseField(fields[1], 0, 23, "时");
+        this.days = parseField(fields[2], 1, 31, "日");
+        this.months = parseField(fields[3], 1, 12, "月");
+        this.weekdays = parseField(fields[4], 0, 7, "周");
+        // 7 与 0 都表示周日
+        if (this.weekdays.get(7)) {
+            this.weekdays.set(0);
+        }
+        this.anyDay = fields[2].equals("*");
+        this.anyWeekday = fields[4].equals("*");
+    }
+
+    /**
+     * 解析 cron 表达式
+     * @throws IllegalArgumentException 表达式格式不正确
+     */
+    public static CronExpression parse(String expression) {
+        String[] fields = expression.trim().split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("cron 表达式需要5个字段 (分 时 日 月 周): " + expression);
+        }
+        return new CronExpression(expression.trim(), fields);
+    }
+
+    private static BitSet parseField(String field, int min, int max, String name) {
+        BitSet values = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            String range = part;
+            if (slash >= 0) {
+                step = parseNumber(part.substring(slash + 1), 1, max, name);
+                range = part.substring(0, slash);
+            }
+            int from;
+            int to;
+            if (range.equals("*")) {
+                from = min;
+                to = max;
+            } else {
+                int dash = range.indexOf('-');
+                if (dash > 0) {
+                    from = parseNumber(range.substring(0, dash), min, max, name);
+                    to = parseNumber(range.substring(dash + 1), min, max, name);
+                } else {
+                    from = parseNumber(range, min, max, name);
+                    // a/n 表示从 a 开始到最大值
+                    to = slash >= 0 ? max : from;
+                }
+            }
+            if (from > to) {
+                throw new IllegalArgumentException(name + "字段的范围无效: " + part);
+            }
+            for (int value = from; value <= to; value += step) {
+                values.set(value);
+            }
+        }
+        return values;
+    }
+
+    private static int parseNumber(String value, int min, int max, String name) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number < min || number > max) {
+                throw new IllegalArgumentException(name + "字段的值超出范围 " + min + "-" + max + ": " + value);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + "字段的值无效: " + value);
+        }
+    }
+
+    /**
+     * 查找某个时间之后（不含）第一个匹配的时间
+     * @return 匹配的时间（整分钟），几年内都没有匹配时返回 null
+     */
+    public LocalDateTime next(LocalDateTime after) {
+        LocalDateTime time = after.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        LocalDateTime limit = time.plusYears(SEARCH_YEARS);
+        while (time.isBefore(limit)) {
+            if (!this.months.get(time.getMonthValue())) {
+                time = time.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+            } else if (!matchesDay(time)) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            } else if (!this.hours.get(time.getHour())) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if (!this.minutes.get(time.getMinute())) {
+                time = time.plusMinutes(1);
+            } else {
+                return time;
+            }
+        }
+        return null;
+    }
+
+    private boolean matchesDay(LocalDateTime time) {
+        boolean day = this.days.get(time.getDayOfMonth());
+        DayOfWeek dayOfWeek = time.getDayOfWeek();
+        boolean weekday = this.weekdays.get(dayOfWeek.getValue() % 7);
+        if (this.anyDay && this.anyWeekday) {
+            return true;
+        }
+        if (this.anyDay) {
+            return weekday;
+        }
+        if (this.anyWeekday) {
+            return day;
+        }
+        return day || weekday;
+    }
+
+    @Override
+    public String toString() {
+        return this.expression;
+    }
+}
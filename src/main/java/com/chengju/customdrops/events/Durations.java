@@ -0,0 +1,60 @@
+package com.chengju.customdrops.events;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 时长的解析与显示（如 30m、2h、1h30m、1d、45s）
+ */
+public final class Durations {
+
+    private static final Pattern DURATION = Pattern.compile("(\\d{1,9})([smhd])");
+
+    private Durations() {
+    }
+
+    /**
+     * 解析时长
+     * @return 毫秒数，格式不正确时返回 -1
+     */
+    public static long parse(String value) {
+        Matcher matcher = DURATION.matcher(value.toLowerCase(Locale.ROOT));
+        long total = 0L;
+        int end = 0;
+        while (matcher.find() && matcher.start() == end) {
+            long amount = Long.parseLong(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "s":
+                    total += amount * 1000L;
+                    break;
+                case "m":
+                    total += amount * 60000L;
+                    break;
+                case "h":
+                    total += amount * 3600000L;
+                    break;
+                default:
+                    total += amount * 86400000L;
+                    break;
+            }
+            end = matcher.end();
+        }
+        return end == value.length() && end > 0 ? total : -1L;
+    }
+
+    // 格式化时长（用于显示剩余时间）
+    public static String format(long millis) {
+        long seconds = Math.max(0L, millis / 1000L);
+        if (seconds >= 86400) {
+            return seconds / 86400 + "天" + seconds % 86400 / 3600 + "小时";
+        }
+        if (seconds >= 3600) {
+            return seconds / 3600 + "小时" + seconds % 3600 / 60 + "分";
+        }
+        if (seconds >= 60) {
+            return seconds / 60 + "分" + seconds % 60 + "秒";
+        }
+        return seconds + "秒";
+    }
+}
@@ -0,0 +1,146 @@
+package com.chengju.customdrops.events;
+
+import com.chengju.customdrops.CustomDropsPlugin;
+import com.chengju.customdrops.PluginConfiguration;
+import com.chengju.customdrops.drops.DropSource;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * 定时倍率活动调度器（如周末双倍掉落）。
+ * <p>
+ * 每次调度时计算各活动当前是否进行中，把进行中活动的倍率交给分层倍率，
+ * 然后只安排一个任务在下一个开始或结束时刻再次运行，不需要每刻轮询。
+ * 活动开始时使用 global.message 中的标题模板广播。
+ */
+public class EventScheduler {
+
+    // 最长等待刻数（10分钟）：服务器卡顿时刻数比实际时间慢，定期按实际时间校正
+    private static final long MAX_SLEEP_TICKS = 20L * 60L * 10L;
+
+    private final CustomDropsPlugin plugin;
+    // 进行中的活动名称
+    private final Set<String> active = new HashSet<>();
+    private BukkitTask task;
+
+    public EventScheduler(CustomDropsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 一个活动的当前或下一次时间窗口
+     */
+    public static final class Window {
+        public final PluginConfiguration.EventConfig event;
+        // 开始时间，几年内都不会开始时为 null
+        public final LocalDateTime start;
+        public final LocalDateTime end;
+        public final boolean active;
+
+        Window(PluginConfiguration.EventConfig event, LocalDateTime start, LocalDateTime end, boolean active) {
+            this.event = event;
+            this.start = start;
+            this.end = end;
+            this.active = active;
+        }
+    }
+
+    /**
+     * 计算活动在某个时刻的当前窗口（进行中时）或下一个窗口
+     */
+    public static Window window(PluginConfiguration.EventConfig event, LocalDateTime now) {
+        // 在 now - 持续时间 之后的第一次开始：不晚于 now 则进行中，否则为下一次开始
+        LocalDateTime start = event.start.next(now.minus(Duration.ofMillis(event.duration)));
+        if (start == null) {
+            return new Window(event, null, null, false);
+        }
+        LocalDateTime end = start.plus(Duration.ofMillis(event.duration));
+        return new Window(event, start, end, !start.isAfter(now));
+    }
+
+    // 所有活动的当前或下一个窗口（按配置顺序）
+    public List<Window> getWindows() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Window> windows = new ArrayList<>();
+        for (PluginConfiguration.EventConfig event : this.plugin.getDropEngine().getConfig().getEvents()) {
+            windows.add(window(event, now));
+        }
+        return windows;
+    }
+
+    /**
+     * 按当前配置重新调度（启动和重载配置后调用）
+     */
+    public void start() {
+        update();
+    }
+
+    private void update() {
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        double[] multipliers = new double[DropSource.values().length];
+        Arrays.fill(multipliers, 1.0D);
+        Set<String> nowActive = new HashSet<>();
+        LocalDateTime nextBoundary = null;
+
+        for (PluginConfiguration.EventConfig event : this.plugin.getDropEngine().getConfig().getEvents()) {
+            Window window = window(event, now);
+            if (window.start == null) {
+                continue;
+            }
+            LocalDateTime boundary = window.active ? window.end : window.start;
+            if (nextBoundary == null || boundary.isBefore(nextBoundary)) {
+                nextBoundary = boundary;
+            }
+            if (!window.active) {
+                continue;
+            }
+            nowActive.add(event.name);
+            for (DropSource source : DropSource.values()) {
+                multipliers[source.ordinal()] *= event.getMultiplier(source);
+            }
+            if (!this.active.contains(event.name)) {
+                this.plugin.getLogger().info("定时活动开始: " + event.name + " (至 " + window.end + ")");
+                this.plugin.broadcastMultiplier(event.getMaxMultiplier());
+            }
+        }
+        for (String name : this.active) {
+            if (!nowActive.contains(name)) {
+                this.plugin.getLogger().info("定时活动结束: " + name);
+                Bukkit.broadcastMessage(ChatColor.YELLOW + "活动 " + name + " 已结束");
+            }
+        }
+        this.active.clear();
+        this.active.addAll(nowActive);
+        this.plugin.getDropEngine().getMultipliers().setEventMultipliers(multipliers);
+
+        if (nextBoundary == null || !this.plugin.isEnabled()) {
+            return;
+        }
+        long millis = Duration.between(now, nextBoundary).toMillis();
+        long delay = Math.max(1L, Math.min(MAX_SLEEP_TICKS, (millis + 49L) / 50L));
+        this.task = this.plugin.getServer().getScheduler().runTaskLater(this.plugin, this::update, delay);
+    }
+
+    // 停止调度（插件禁用时调用）
+    public void stop() {
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+        this.active.clear();
+    }
+}
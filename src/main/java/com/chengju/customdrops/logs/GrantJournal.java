@@ -0,0 +1,278 @@
+package com.chengju.customdrops.logs;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * 奖励发放预写日志（grants.journal）。
+ * <p>
+ * 每次发放在执行动作之前追加 BEGIN（流水号 + 完整的日志记录），动作执行完后追加 COMPLETE；
+ * 日志记录写入存储后追加 CHECKPOINT（该流水号及之前的记录都已写入存储）。
+ * CHECKPOINT 只推进到尚未写入存储的最小流水号之前，写入队列已满时被丢弃的记录不会被越过，
+ * 而是由写入线程随下一批记录补写（见 {@link #dropped(long)}）。
+ * 记录先放入内存缓冲区，由日志写入线程每个刷写间隔写入并 fsync 一次（组提交），
+ * 宕机时最多丢失最近一个刷写间隔内的记录。
+ * <p>
+ * 启动时读取最后一个 CHECKPOINT 之后的 BEGIN，由调用方补写进日志存储。
+ * 所有记录都已写入存储时清空文件；文件过大时只保留尚未写入存储的记录重写，文件不会无限增长。
+ * <pre>
+ * 记录: byte 类型, long 流水号[, BEGIN: LogRecordCodec 编码的记录]
+ * </pre>
+ */
+class GrantJournal implements Closeable {
+
+    private static final byte BEGIN = 1;
+    private static final byte COMPLETE = 2;
+    private static final byte CHECKPOINT = 3;
+    // 超过该大小时重写日志文件（只保留尚未写入存储的记录）
+    private static final long REWRITE_SIZE = 1024 * 1024;
+
+    private final File file;
+    // 日志文件（只在写入线程中访问）
+    private FileChannel channel;
+
+    // 以下字段受 this 锁保护
+    // 等待写入文件的记录
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+    // 尚未写入存储的发放（流水号 -> 记录），按流水号排列
+    private final TreeMap<Long, Pending> pending = new TreeMap<>();
+    // 未能进入写入队列、等待写入线程补写的记录
+    private List<LogEntry> dropped = new ArrayList<>();
+    private long nextSequence = 1L;
+    private long checkpointed;
+
+    GrantJournal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * 打开日志文件，读取上次运行中尚未写入存储的发放。
+     * 这些发放在调用方补写进存储并调用 {@link #stored(List)} 之前会一直保留在日志中。
+     *
+     * @return 需要补写的发放（按流水号顺序）
+     */
+    synchronized List<Recovered> open() throws IOException {
+        File dir = this.file.getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("无法创建日志目录: " + dir.getAbsolutePath());
+        }
+        Map<Long, Recovered> recovered = new LinkedHashMap<>();
+        long maxSequence = 0L;
+        long lastCheckpoint = 0L;
+        if (this.file.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)))) {
+                while (true) {
+                    byte type = in.readByte();
+                    long sequence = in.readLong();
+                    maxSequence = Math.max(maxSequence, sequence);
+                    if (type == BEGIN) {
+                        int length = in.readInt();
+                        if (length <= 0 || length > LogRecordCodec.MAX_RECORD_SIZE) {
+                            break;
+                        }
+                        byte[] payload = new byte[length];
+                        in.readFully(payload);
+                        if (in.readInt() != length) {
+                            break;
+                        }
+                        LogEntry entry = LogRecordCodec.decode(new DataInputStream(new ByteArrayInputStream(payload)));
+                        recovered.put(sequence, new Recovered(new LogEntry(entry.getTimestamp(), entry.getPlayerId(),
+                                entry.getPlayerName(), entry.getItemName(), entry.getSource(), entry.getWorld(), sequence)));
+                    } else if (type == COMPLETE) {
+                        Recovered grant = recovered.get(sequence);
+                        if (grant != null) {
+                            grant.complete = true;
+                        }
+                    } else if (type == CHECKPOINT) {
+                        lastCheckpoint = Math.max(lastCheckpoint, sequence);
+                        recovered.keySet().removeIf(id -> id <= sequence);
+                    } else {
+                        break;
+                    }
+                }
+            } catch (EOFException e) {
+                // 正常结束，或宕机时最后一条记录不完整
+            }
+        }
+        this.nextSequence = maxSequence + 1;
+        this.checkpointed = lastCheckpoint;
+        for (Recovered grant : recovered.values()) {
+            Pending record = new Pending(grant.entry, beginRecord(grant.entry));
+            record.complete = grant.complete;
+            this.pending.put(grant.entry.getSequence(), record);
+        }
+        this.channel = FileChannel.open(this.file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new ArrayList<>(recovered.values());
+    }
+
+    // 分配下一个发放流水号
+    synchronized long nextSequence() {
+        return this.nextSequence++;
+    }
+
+    // 记录一次发放开始（在执行动作之前调用）
+    synchronized void begin(LogEntry entry) {
+        byte[] record = beginRecord(entry);
+        this.pending.put(entry.getSequence(), new Pending(entry, record));
+        this.buffer.write(record, 0, record.length);
+    }
+
+    // 记录一次发放完成（动作执行完后调用）
+    synchronized void complete(long sequence) {
+        Pending grant = this.pending.get(sequence);
+        if (grant == null) {
+            // 记录已写入存储，无需再标记
+            return;
+        }
+        grant.complete = true;
+        writeMarker(COMPLETE, sequence);
+    }
+
+    // 记录未能进入写入队列（队列已满时被拒绝或挤出），由写入线程通过 takeDropped 取出后补写
+    synchronized void dropped(long sequence) {
+        Pending grant = this.pending.get(sequence);
+        if (grant != null) {
+            this.dropped.add(grant.entry);
+        }
+    }
+
+    // 取出等待补写的记录
+    synchronized List<LogEntry> takeDropped() {
+        if (this.dropped.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<LogEntry> entries = this.dropped;
+        this.dropped = new ArrayList<>();
+        return entries;
+    }
+
+    /**
+     * 记录这些发放已写入存储，CHECKPOINT 推进到尚未写入存储的最小流水号之前
+     * （未写入的记录，如写入失败或仍在队列中的，不会被越过）
+     */
+    synchronized void stored(List<LogEntry> entries) {
+        for (LogEntry entry : entries) {
+            this.pending.remove(entry.getSequence());
+        }
+        // 已分配流水号但尚未 BEGIN 的发放在 CHECKPOINT 之后追加，恢复时不受影响
+        long sequence = this.pending.isEmpty() ? this.nextSequence - 1 : this.pending.firstKey() - 1;
+        if (sequence <= this.checkpointed) {
+            return;
+        }
+        this.checkpointed = sequence;
+        writeMarker(CHECKPOINT, sequence);
+    }
+
+    /**
+     * 把缓冲区写入文件并 fsync（组提交，在写入线程中每个刷写间隔调用一次）。
+     * 所有发放都已写入存储时清空文件，文件过大时只保留尚未写入存储的发放重写。
+     */
+    void sync() throws IOException {
+        byte[] data;
+        boolean rewrite;
+        synchronized (this) {
+            rewrite = this.pending.isEmpty() ? this.channel.size() > 0 : this.channel.size() > REWRITE_SIZE;
+            if (rewrite) {
+                // 缓冲区中的记录已被重写内容包含
+                this.buffer.reset();
+                ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+                for (Map.Entry<Long, Pending> grant : this.pending.entrySet()) {
+                    snapshot.write(grant.getValue().record);
+                    if (grant.getValue().complete) {
+                        snapshot.write(marker(COMPLETE, grant.getKey()));
+                    }
+                }
+                data = snapshot.toByteArray();
+            } else {
+                data = this.buffer.toByteArray();
+                this.buffer.reset();
+            }
+        }
+
+        if (rewrite) {
+            rewrite(data);
+        } else if (data.length > 0) {
+            ByteBuffer bytes = ByteBuffer.wrap(data);
+            long position = this.channel.size();
+            while (bytes.hasRemaining()) {
+                position += this.channel.write(bytes, position);
+            }
+            this.channel.force(false);
+        }
+    }
+
+    // 用 data 替换整个日志文件（先写临时文件再替换，宕机时旧文件仍然完整）
+    private void rewrite(byte[] data) throws IOException {
+        if (data.length == 0) {
+            this.channel.truncate(0);
+            this.channel.force(false);
+            return;
+        }
+        File temp = new File(this.file.getParentFile(), this.file.getName() + ".tmp");
+        try (FileOutputStream tempOut = new FileOutputStream(temp)) {
+            tempOut.write(data);
+            tempOut.getFD().sync();
+        }
+        this.channel.close();
+        Files.move(temp.toPath(), this.file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        this.channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // 写完剩余的记录并关闭文件（在写入线程结束后调用）
+    @Override
+    public void close() throws IOException {
+        if (this.channel == null) {
+            return;
+        }
+        try {
+            sync();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    private void writeMarker(byte type, long sequence) {
+        byte[] marker = marker(type, sequence);
+        this.buffer.write(marker, 0, marker.length);
+    }
+
+    private static byte[] marker(byte type, long sequence) {
+        return ByteBuffer.allocate(9).put(type).putLong(sequence).array();
+    }
+
+    private static byte[] beginRecord(LogEntry entry) {
+        byte[] record = LogRecordCodec.encode(entry);
+        return ByteBuffer.allocate(9 + record.length).put(BEGIN).putLong(entry.getSequence()).put(record).array();
+    }
+
+    // 尚未写入存储的发放
+    private static final class Pending {
+        final LogEntry entry;
+        final byte[] record;
+        boolean complete;
+
+        Pending(LogEntry entry, byte[] record) {
+            this.entry = entry;
+            this.record = record;
+        }
+    }
+
+    /**
+     * 上次运行中尚未写入存储的发放
+     */
+    static final class Recovered {
+        final LogEntry entry;
+        // 动作是否已执行完（false 表示发放过程中服务器停止，奖励可能未完整发放）
+        boolean complete;
+
+        Recovered(LogEntry entry) {
+            this.entry = entry;
+        }
+    }
+}
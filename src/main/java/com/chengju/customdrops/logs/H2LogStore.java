@@ -0,0 +1,297 @@
+package com.chengju.customdrops.logs;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * 嵌入式 H2 数据库（文件模式）日志存储。
+ * <p>
+ * 写入使用预编译语句批量插入，每批一个事务；(玩家, 时间) 与 (掉落物, 时间) 上建有索引，
+ * 管理员可以直接查询历史记录而无需遍历日志文件。
+ * 写入线程与查询各使用一个连接，查询不会被批量写入阻塞。
+ */
+public class H2LogStore implements LogStore {
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS drop_log ("
+            + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "ts BIGINT NOT NULL, "
+            + "player_id UUID NOT NULL, "
+            + "player_name VARCHAR(64) NOT NULL, "
+            + "drop_name VARCHAR(255) NOT NULL, "
+            + "source VARCHAR(64) NOT NULL, "
+            + "world VARCHAR(128) NOT NULL)";
+    private static final String CREATE_PLAYER_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_drop_log_player_ts ON drop_log (player_id, ts)";
+    private static final String CREATE_DROP_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_drop_log_drop_ts ON drop_log (drop_name, ts)";
+    private static final String INSERT = "INSERT INTO drop_log "
+            + "(ts, player_id, player_name, drop_name, source, world) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_BEFORE = "DELETE FROM drop_log WHERE ts < ?";
+    // 把已提交的事务写入数据库文件并 fsync
+    private static final String CHECKPOINT_SYNC = "CHECKPOINT SYNC";
+    private static final String SELECT_COLUMNS = "SELECT ts, player_id, player_name, drop_name, source, world FROM drop_log ";
+    // 迁移的旧记录没有UUID，按玩家名匹配
+    private static final String SELECT_PLAYER = SELECT_COLUMNS
+            + "WHERE (player_id = ? OR (player_id = ? AND LOWER(player_name) = LOWER(?))) "
+            + "AND ts >= ? AND ts < ? ORDER BY ts, id";
+    private static final String SELECT_DROP = SELECT_COLUMNS
+            + "WHERE drop_name = ? AND ts >= ? AND ts < ? ORDER BY ts, id";
+    private static final String SELECT_PLAYER_LATEST = SELECT_COLUMNS
+            + "WHERE (player_id = ? OR (player_id = ? AND LOWER(player_name) = LOWER(?))) "
+            + "AND ts >= ? AND ts < ? ORDER BY ts DESC, id DESC";
+    private static final String SELECT_LATEST = SELECT_COLUMNS
+            + "WHERE ts >= ? AND ts < ? ORDER BY ts DESC, id DESC";
+    private static final String SELECT_RANGE = SELECT_COLUMNS
+            + "WHERE ts >= ? AND ts < ? ORDER BY ts, id";
+
+    private final Connection writeConnection;
+    private final Connection readConnection;
+
+    /**
+     * 打开（或创建）数据库
+     * @param file 数据库文件路径（不含扩展名）
+     */
+    public H2LogStore(File file) throws IOException {
+        String url = "jdbc:h2:file:" + file.getAbsolutePath();
+        org.h2.Driver driver = new org.h2.Driver();
+        Connection write = null;
+        try {
+            write = driver.connect(url, new Properties());
+            try (Statement statement = write.createStatement()) {
+                statement.execute(CREATE_TABLE);
+                statement.execute(CREATE_PLAYER_INDEX);
+                statement.execute(CREATE_DROP_INDEX);
+            }
+            write.setAutoCommit(false);
+            this.readConnection = driver.connect(url, new Properties());
+            this.writeConnection = write;
+        } catch (SQLException e) {
+            closeQuietly(write);
+            throw new IOException("无法打开日志数据库: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "h2";
+    }
+
+    @Override
+    public void append(List<LogEntry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        synchronized (writeConnection) {
+            insert(entries);
+        }
+    }
+
+    private void insert(List<LogEntry> entries) throws IOException {
+        try (PreparedStatement insert = writeConnection.prepareStatement(INSERT)) {
+            for (LogEntry entry : entries) {
+                insert.setLong(1, entry.getTimestamp());
+                insert.setObject(2, entry.getPlayerId());
+                insert.setString(3, entry.getPlayerName());
+                insert.setString(4, entry.getItemName());
+                insert.setString(5, entry.getSource());
+                insert.setString(6, entry.getWorld());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            writeConnection.commit();
+        } catch (SQLException e) {
+            try {
+                writeConnection.rollback();
+            } catch (SQLException ignored) {
+                // 回滚失败时保留原始异常
+            }
+            throw new IOException("写入日志数据库失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void sync() throws IOException {
+        synchronized (writeConnection) {
+            try (Statement statement = writeConnection.createStatement()) {
+                statement.execute(CHECKPOINT_SYNC);
+            } catch (SQLException e) {
+                throw new IOException("同步日志数据库失败: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void compact(LocalDate before) {
+        // 数据库自行管理存储空间，不需要单独压缩
+    }
+
+    @Override
+    public void purge(LocalDate before) throws IOException {
+        synchronized (writeConnection) {
+            try (PreparedStatement delete = writeConnection.prepareStatement(DELETE_BEFORE)) {
+                delete.setLong(1, startOf(before));
+                delete.executeUpdate();
+                writeConnection.commit();
+            } catch (SQLException e) {
+                try {
+                    writeConnection.rollback();
+                } catch (SQLException ignored) {
+                    // 回滚失败时保留原始异常
+                }
+                throw new IOException("删除过期日志失败: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public List<LogEntry> readPlayer(UUID playerId, String playerName, LocalDate from, LocalDate to) throws IOException {
+        synchronized (readConnection) {
+            try (PreparedStatement select = readConnection.prepareStatement(SELECT_PLAYER)) {
+                select.setObject(1, playerId);
+                select.setObject(2, LogEntry.UNKNOWN_PLAYER);
+                select.setString(3, playerName);
+                select.setLong(4, startOf(from));
+                select.setLong(5, startOf(to.plusDays(1)));
+                return readEntries(select);
+            } catch (SQLException e) {
+                throw new IOException("查询日志数据库失败: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public List<LogEntry> readLatest(UUID playerId, String playerName, LocalDate from, LocalDate to,
+                                     int limit, Predicate<LogEntry> filter) throws IOException {
+        synchronized (readConnection) {
+            try (PreparedStatement select = readConnection.prepareStatement(
+                    playerId != null ? SELECT_PLAYER_LATEST : SELECT_LATEST)) {
+                int parameter = 1;
+                if (playerId != null) {
+                    select.setObject(parameter++, playerId);
+                    select.setObject(parameter++, LogEntry.UNKNOWN_PLAYER);
+                    select.setString(parameter++, playerName);
+                }
+                select.setLong(parameter++, startOf(from));
+                select.setLong(parameter, startOf(to.plusDays(1)));
+                if (filter == null) {
+                    select.setMaxRows(limit);
+                }
+                // 按时间倒序逐行读取，找够 limit 条后停止
+                select.setFetchSize(Math.min(limit, 1000));
+                List<LogEntry> entries = new ArrayList<>();
+                try (ResultSet rows = select.executeQuery()) {
+                    while (entries.size() < limit && rows.next()) {
+                        LogEntry entry = readEntry(rows);
+                        if (filter == null || filter.test(entry)) {
+                            entries.add(entry);
+                        }
+                    }
+                }
+                return entries;
+            } catch (SQLException e) {
+                throw new IOException("查询日志数据库失败: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public List<LogEntry> readByDrop(String itemName, LocalDate from, LocalDate to,
+                                     int limit, Predicate<LogEntry> filter) throws IOException {
+        synchronized (readConnection) {
+            try (PreparedStatement select = readConnection.prepareStatement(SELECT_DROP)) {
+                select.setString(1, itemName);
+                select.setLong(2, startOf(from));
+                select.setLong(3, startOf(to.plusDays(1)));
+                if (filter == null) {
+                    select.setMaxRows(limit);
+                }
+                // 按时间顺序逐行读取，找够 limit 条后停止
+                select.setFetchSize(Math.min(limit, 1000));
+                List<LogEntry> entries = new ArrayList<>();
+                try (ResultSet rows = select.executeQuery()) {
+                    while (entries.size() < limit && rows.next()) {
+                        LogEntry entry = readEntry(rows);
+                        if (filter == null || filter.test(entry)) {
+                            entries.add(entry);
+                        }
+                    }
+                }
+                return entries;
+            } catch (SQLException e) {
+                throw new IOException("查询日志数据库失败: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void scan(LocalDate from, LocalDate to, Visitor visitor) throws IOException {
+        // 每天一个查询，查询之间释放连接，长时间的导出不会一直阻塞其他查询
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            synchronized (readConnection) {
+                try (PreparedStatement select = readConnection.prepareStatement(SELECT_RANGE)) {
+                    select.setLong(1, startOf(date));
+                    select.setLong(2, startOf(date.plusDays(1)));
+                    select.setFetchSize(1000);
+                    try (ResultSet rows = select.executeQuery()) {
+                        while (rows.next()) {
+                            if (!visitor.visit(readEntry(rows))) {
+                                return;
+                            }
+                        }
+                    }
+                } catch (SQLException e) {
+                    throw new IOException("查询日志数据库失败: " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private static List<LogEntry> readEntries(PreparedStatement select) throws SQLException {
+        List<LogEntry> entries = new ArrayList<>();
+        try (ResultSet rows = select.executeQuery()) {
+            while (rows.next()) {
+                entries.add(readEntry(rows));
+            }
+        }
+        return entries;
+    }
+
+    private static LogEntry readEntry(ResultSet rows) throws SQLException {
+        return new LogEntry(rows.getLong(1), rows.getObject(2, UUID.class), rows.getString(3),
+                rows.getString(4), rows.getString(5), rows.getString(6));
+    }
+
+    // 某一天开始时的毫秒时间戳（服务器本地时区）
+    private static long startOf(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(readConnection);
+        closeQuietly(writeConnection);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // 关闭时的错误无需处理
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.chengju.customdrops.logs;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * 旧版日志迁移（一次性）。
+ * 将 player_logs/yyyy/MM/dd/玩家名.yml 转换为按天的只追加日志，
+ * 每迁移完一天就把该天的旧目录移动到备份目录，中断后重新启动会从未迁移的日期继续。
+ */
+class LegacyLogMigrator {
+
+    private final Logger logger;
+    private final File legacyDir;
+    private final File backupDir;
+    // 玩家名（小写） -> UUID，找不到的玩家使用 LogEntry.UNKNOWN_PLAYER
+    private final Map<String, UUID> playerIds;
+
+    LegacyLogMigrator(Logger logger, File legacyDir, File backupDir, Map<String, UUID> playerIds) {
+        this.logger = logger;
+        this.legacyDir = legacyDir;
+        this.backupDir = backupDir;
+        this.playerIds = playerIds;
+    }
+
+    // 是否存在需要迁移的旧日志
+    static boolean hasLegacyLogs(File legacyDir) {
+        File[] years = legacyDir.listFiles(File::isDirectory);
+        return years != null && years.length > 0;
+    }
+
+    /**
+     * 按日期顺序迁移所有旧日志
+     *
+     * @param store 新格式的日志存储
+     */
+    void migrate(LogStore store) {
+        int days = 0;
+        int entries = 0;
+        for (File yearDir : sortedDirs(legacyDir)) {
+            for (File monthDir : sortedDirs(yearDir)) {
+                for (File dayDir : sortedDirs(monthDir)) {
+                    LocalDate date;
+                    try {
+                        date = LocalDate.of(Integer.parseInt(yearDir.getName()),
+                                Integer.parseInt(monthDir.getName()), Integer.parseInt(dayDir.getName()));
+                    } catch (RuntimeException e) {
+                        logger.warning("跳过无法识别日期的旧日志目录: " + dayDir.getPath());
+                        continue;
+                    }
+
+                    List<LogEntry> dayEntries = readDay(date, dayDir);
+                    try {
+                        store.append(dayEntries);
+                    } catch (IOException e) {
+                        logger.warning("迁移旧日志失败，下次启动时重试: " + dayDir.getPath() + " (" + e.getMessage() + ")");
+                        return;
+                    }
+                    moveToBackup(yearDir, monthDir, dayDir);
+                    days++;
+                    entries += dayEntries.size();
+                }
+                monthDir.delete(); // 仅在已清空时成功
+            }
+            yearDir.delete();
+        }
+        logger.info("旧版玩家日志迁移完成: " + days + " 天, " + entries + " 条记录 (原文件已移动到 " + backupDir.getName() + ")");
+    }
+
+    // 读取一天内所有玩家的旧日志，按时间排序
+    private List<LogEntry> readDay(LocalDate date, File dayDir) {
+        List<LogEntry> entries = new ArrayList<>();
+        File[] files = dayDir.listFiles((dir, name) -> name.endsWith(".yml"));
+        if (files == null) {
+            return entries;
+        }
+        for (File file : files) {
+            YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+            for (String playerName : config.getKeys(false)) {
+                ConfigurationSection section = config.getConfigurationSection(playerName);
+                if (section == null) {
+                    continue;
+                }
+                UUID playerId = playerIds.getOrDefault(playerName.toLowerCase(Locale.ROOT), LogEntry.UNKNOWN_PLAYER);
+                for (String time : section.getKeys(false)) {
+                    long timestamp;
+                    try {
+                        timestamp = date.atTime(LocalTime.parse(time))
+                                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                    } catch (DateTimeParseException e) {
+                        continue;
+                    }
+                    // 旧格式：物品名称(来源)
+                    String value = section.getString(time, "");
+                    String itemName = value;
+                    String source = "";
+                    int open = value.lastIndexOf('(');
+                    if (open > 0 && value.endsWith(")")) {
+                        itemName = value.substring(0, open);
+                        source = value.substring(open + 1, value.length() - 1);
+                    }
+                    entries.add(new LogEntry(timestamp, playerId, playerName, itemName, source, ""));
+                }
+            }
+        }
+        entries.sort(Comparator.comparingLong(LogEntry::getTimestamp));
+        return entries;
+    }
+
+    // 把已迁移的日期目录移动到备份目录
+    private void moveToBackup(File yearDir, File monthDir, File dayDir) {
+        File target = new File(new File(new File(backupDir, yearDir.getName()), monthDir.getName()), dayDir.getName());
+        target.getParentFile().mkdirs();
+        if (!dayDir.renameTo(target)) {
+            logger.warning("无法移动已迁移的旧日志目录: " + dayDir.getPath());
+        }
+    }
+
+    private static List<File> sortedDirs(File dir) {
+        File[] dirs = dir.listFiles(File::isDirectory);
+        if (dirs == null) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(dirs, Comparator.comparing(File::getName));
+        return Arrays.asList(dirs);
+    }
+}
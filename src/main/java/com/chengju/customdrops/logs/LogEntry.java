@@ -0,0 +1,77 @@
+package com.chengju.customdrops.logs;
+
+import java.util.UUID;
+
+/**
+ * 一条物品获取记录（不可变）。
+ * 在主线程创建后交给写入线程，因此只包含纯数据，不持有 Player 等 Bukkit 对象。
+ */
+public final class LogEntry {
+    // 迁移的旧日志无法确定玩家UUID时使用，按玩家名匹配
+    public static final UUID UNKNOWN_PLAYER = new UUID(0L, 0L);
+
+    private final long timestamp;     // 获取时间（毫秒时间戳）
+    private final UUID playerId;      // 玩家UUID
+    private final String playerName;  // 玩家名
+    private final String itemName;    // 物品（掉落）名称
+    private final String source;      // 获取来源
+    private final String world;       // 获取时所在世界（迁移的旧记录为空字符串）
+    private final long sequence;      // 发放流水号（见 GrantJournal，只在内存中使用，不写入日志文件；0表示无）
+
+    public LogEntry(long timestamp, UUID playerId, String playerName, String itemName, String source, String world) {
+        this(timestamp, playerId, playerName, itemName, source, world, 0L);
+    }
+
+    public LogEntry(long timestamp, UUID playerId, String playerName, String itemName, String source, String world,
+                    long sequence) {
+        this.timestamp = timestamp;
+        this.playerId = playerId;
+        this.playerName = playerName;
+        this.itemName = itemName;
+        this.source = source;
+        this.world = world;
+        this.sequence = sequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getWorld() {
+        return world;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    // 是否是同一次获取（比较记录内容，不比较流水号）
+    public boolean sameRecord(LogEntry other) {
+        return timestamp == other.timestamp && playerId.equals(other.playerId) && itemName.equals(other.itemName)
+                && source.equals(other.source);
+    }
+
+    // 是否是指定玩家的记录（未知UUID的旧记录按玩家名匹配）
+    public boolean belongsTo(UUID id, String name) {
+        if (UNKNOWN_PLAYER.equals(playerId)) {
+            return playerName.equalsIgnoreCase(name);
+        }
+        return playerId.equals(id);
+    }
+}
@@ -0,0 +1,221 @@
+package com.chengju.customdrops.logs;
+
+import com.chengju.customdrops.CustomDropsPlugin;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * 把日期范围内的掉落日志导出为 CSV 或 JSONL 文件（在异步任务中运行）。
+ * <p>
+ * 通过 {@link LogStore#scan} 逐条读取并立即写出，内存占用与日期范围无关。
+ * 先写入 .part 临时文件，完成后再改名，取消或出错时删除临时文件；进度定期发送给发起者。
+ */
+public class LogExporter implements Runnable {
+
+    // 两次进度报告之间的最短间隔（毫秒）
+    private static final long REPORT_INTERVAL = 5000L;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        CSV("csv"),
+        JSONL("jsonl");
+
+        public final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        // 按名称解析（不区分大小写），无法识别时返回 null
+        public static Format parse(String name) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final CustomDropsPlugin plugin;
+    private final LogStore store;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final Format format;
+    private final File file;
+    private final CommandSender sender;
+    private volatile boolean cancelled;
+    // 已写出的记录数（只在导出线程中修改）
+    private volatile long written;
+
+    public LogExporter(CustomDropsPlugin plugin, LogStore store, LocalDate from, LocalDate to,
+                       Format format, File file, CommandSender sender) {
+        this.plugin = plugin;
+        this.store = store;
+        this.from = from;
+        this.to = to;
+        this.format = format;
+        this.file = file;
+        this.sender = sender;
+    }
+
+    @Override
+    public void run() {
+        long start = System.currentTimeMillis();
+        File dir = this.file.getParentFile();
+        File part = new File(dir, this.file.getName() + ".part");
+        try {
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new IOException("无法创建导出目录: " + dir.getAbsolutePath());
+            }
+            try (Writer out = new OutputStreamWriter(
+                    new BufferedOutputStream(new FileOutputStream(part), 64 * 1024), StandardCharsets.UTF_8)) {
+                export(out);
+            }
+            if (this.cancelled) {
+                part.delete();
+                report(ChatColor.YELLOW + "导出已取消，已写出的 " + this.written + " 条记录已丢弃");
+                return;
+            }
+            Files.move(part.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            String message = "导出完成: " + this.written + " 条记录, 用时 "
+                    + (System.currentTimeMillis() - start) / 1000 + " 秒, 文件 " + this.file.getPath();
+            this.plugin.getLogger().info(message);
+            report(ChatColor.GREEN + message);
+        } catch (IOException e) {
+            part.delete();
+            this.plugin.getLogger().warning("导出日志时出错: " + e.getMessage());
+            report(ChatColor.RED + "导出失败: " + e.getMessage());
+        }
+    }
+
+    private void export(Writer out) throws IOException {
+        long days = ChronoUnit.DAYS.between(this.from, this.to) + 1;
+        StringBuilder line = new StringBuilder(256);
+        if (this.format == Format.CSV) {
+            // BOM 让表格软件按 UTF-8 打开
+            out.write('\uFEFF');
+            out.write("time,timestamp,player_uuid,player_name,drop,source,world\n");
+        }
+        long[] lastReport = {System.currentTimeMillis()};
+        this.store.scan(this.from, this.to, entry -> {
+            if (this.cancelled) {
+                return false;
+            }
+            line.setLength(0);
+            if (this.format == Format.CSV) {
+                appendCsv(line, entry);
+            } else {
+                appendJson(line, entry);
+            }
+            out.write(line.toString());
+            this.written++;
+
+            if ((this.written & 4095) == 0 && System.currentTimeMillis() - lastReport[0] >= REPORT_INTERVAL) {
+                lastReport[0] = System.currentTimeMillis();
+                LocalDate date = PlayerLogManager.toDate(entry.getTimestamp());
+                report(ChatColor.GRAY + "导出进度: " + date + " (" + (ChronoUnit.DAYS.between(this.from, date) + 1)
+                        + "/" + days + " 天), 已写出 " + this.written + " 条记录");
+            }
+            return true;
+        });
+    }
+
+    private static void appendCsv(StringBuilder line, LogEntry entry) {
+        line.append(formatTime(entry.getTimestamp())).append(',').append(entry.getTimestamp()).append(',')
+                .append(entry.getPlayerId()).append(',');
+        appendCsvField(line, entry.getPlayerName());
+        line.append(',');
+        appendCsvField(line, entry.getItemName());
+        line.append(',');
+        appendCsvField(line, entry.getSource());
+        line.append(',');
+        appendCsvField(line, entry.getWorld());
+        line.append('\n');
+    }
+
+    // 含逗号、引号或换行的字段用引号括起，引号写两次
+    private static void appendCsvField(StringBuilder line, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static void appendJson(StringBuilder line, LogEntry entry) {
+        line.append("{\"time\":\"").append(formatTime(entry.getTimestamp()))
+                .append("\",\"timestamp\":").append(entry.getTimestamp())
+                .append(",\"player_uuid\":\"").append(entry.getPlayerId())
+                .append("\",\"player_name\":");
+        appendJsonString(line, entry.getPlayerName());
+        line.append(",\"drop\":");
+        appendJsonString(line, entry.getItemName());
+        line.append(",\"source\":");
+        appendJsonString(line, entry.getSource());
+        line.append(",\"world\":");
+        appendJsonString(line, entry.getWorld());
+        line.append("}\n");
+    }
+
+    private static void appendJsonString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c == '\n') {
+                line.append("\\n");
+            } else if (c == '\r') {
+                line.append("\\r");
+            } else if (c == '\t') {
+                line.append("\\t");
+            } else if (c < 0x20) {
+                line.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private static String formatTime(long timestamp) {
+        return TIME_FORMAT.format(Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()));
+    }
+
+    // 在主线程中向发起者发送消息
+    private void report(String message) {
+        if (this.plugin.isEnabled()) {
+            this.plugin.getServer().getScheduler().runTask(this.plugin, () -> this.sender.sendMessage(message));
+        }
+    }
+
+    /**
+     * 请求取消导出（在下一条记录处停止）
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public File getFile() {
+        return this.file;
+    }
+
+    public long getWritten() {
+        return this.written;
+    }
+}
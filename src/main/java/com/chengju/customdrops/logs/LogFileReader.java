@@ -0,0 +1,78 @@
+package com.chengju.customdrops.logs;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 顺序读取一个日志文件中的记录（见 {@link LogRecordCodec}）。
+ * 遇到不完整或损坏的记录时停止，之前的记录不受影响。
+ */
+public class LogFileReader implements Closeable {
+
+    private final DataInputStream in;
+    private final String fileName;
+    private boolean finished;
+
+    public LogFileReader(File file) throws IOException {
+        this(new FileInputStream(file), file.getName());
+    }
+
+    /**
+     * 从输入流读取（如压缩归档的解压流），关闭读取器时一并关闭输入流
+     * @param input 输入流
+     * @param fileName 文件名（用于错误信息）
+     */
+    public LogFileReader(InputStream input, String fileName) throws IOException {
+        this.fileName = fileName;
+        this.in = new DataInputStream(new BufferedInputStream(input, 64 * 1024));
+        try {
+            if (this.in.readInt() != LogRecordCodec.MAGIC || this.in.readInt() != LogRecordCodec.VERSION) {
+                throw new IOException("不是有效的掉落日志文件: " + this.fileName);
+            }
+        } catch (IOException e) {
+            this.in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 下一条记录，已读完（或遇到损坏的记录）时返回 null
+     */
+    public LogEntry next() throws IOException {
+        if (this.finished) {
+            return null;
+        }
+        try {
+            int length = this.in.readInt();
+            if (length <= 0 || length > LogRecordCodec.MAX_RECORD_SIZE) {
+                this.finished = true;
+                return null;
+            }
+            byte[] payload = new byte[length];
+            this.in.readFully(payload);
+            if (this.in.readInt() != length) {
+                this.finished = true;
+                return null;
+            }
+            return LogRecordCodec.decode(new DataInputStream(new ByteArrayInputStream(payload)));
+        } catch (EOFException e) {
+            // 正常结束或末尾记录不完整
+            this.finished = true;
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+}
@@ -0,0 +1,185 @@
+package com.chengju.customdrops.logs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.UUID;
+
+/**
+ * 掉落日志文件格式（每天一个只追加的记录流）。
+ * <pre>
+ * 文件头: "CDLG"(4字节) + 版本号(int)
+ * 记录:   [int 长度][记录内容][int 长度]
+ * 内容:   long 时间戳, long UUID高位, long UUID低位, UTF 玩家名, UTF 物品名, UTF 来源, UTF 世界
+ * </pre>
+ * 记录首尾都写入长度，既可以从头顺序读取，也可以从文件末尾反向读取；
+ * 首尾长度不一致说明记录写入不完整（如宕机），读取在此停止。
+ */
+public final class LogRecordCodec {
+
+    // 文件头魔数 "CDLG"
+    public static final int MAGIC = 0x43444C47;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 8;
+    // 单条记录的长度上限（用于识别损坏的数据）
+    public static final int MAX_RECORD_SIZE = 4 * 65535 + 24;
+
+    private LogRecordCodec() {
+    }
+
+    // 文件头
+    public static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        return header;
+    }
+
+    // 编码一条记录（含首尾长度）
+    public static byte[] encode(LogEntry entry) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0); // 占位，稍后写入长度
+            out.writeLong(entry.getTimestamp());
+            out.writeLong(entry.getPlayerId().getMostSignificantBits());
+            out.writeLong(entry.getPlayerId().getLeastSignificantBits());
+            out.writeUTF(entry.getPlayerName());
+            out.writeUTF(entry.getItemName());
+            out.writeUTF(entry.getSource());
+            out.writeUTF(entry.getWorld());
+            out.writeInt(0);
+
+            byte[] record = bytes.toByteArray();
+            int length = record.length - 8;
+            ByteBuffer.wrap(record).putInt(0, length).putInt(record.length - 4, length);
+            return record;
+        } catch (IOException e) {
+            // 写入内存不会发生 I/O 错误
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 解码记录内容（不含首尾长度）
+    public static LogEntry decode(DataInputStream in) throws IOException {
+        long timestamp = in.readLong();
+        UUID playerId = new UUID(in.readLong(), in.readLong());
+        String playerName = in.readUTF();
+        String itemName = in.readUTF();
+        String source = in.readUTF();
+        String world = in.readUTF();
+        return new LogEntry(timestamp, playerId, playerName, itemName, source, world);
+    }
+
+    // 检查文件头是否有效
+    public static boolean isValidHeader(ByteBuffer header) {
+        return header.remaining() >= HEADER_SIZE && header.getInt(header.position()) == MAGIC
+                && header.getInt(header.position() + 4) == VERSION;
+    }
+
+    /**
+     * 准备追加写入：写入缺失的文件头，并截掉末尾不完整的记录。
+     *
+     * @return 可以开始追加的位置
+     */
+    public static long prepareAppend(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            channel.truncate(0);
+            channel.write(header(), 0);
+            return HEADER_SIZE;
+        }
+
+        long end = completeEnd(channel, size);
+        if (end < size) {
+            channel.truncate(end);
+        }
+        return end;
+    }
+
+    /**
+     * 获取最后一条完整记录的结束位置（只读，不修改文件）
+     *
+     * @param size 文件长度
+     * @return 最后一条完整记录的结束位置，没有记录时返回文件头长度
+     */
+    public static long completeEnd(FileChannel channel, long size) throws IOException {
+        // 快速路径：最后一条记录首尾长度一致
+        if (size <= HEADER_SIZE || isCompleteRecordEndingAt(channel, size)) {
+            return Math.max(size, HEADER_SIZE);
+        }
+
+        // 末尾损坏：从头扫描到最后一条完整记录
+        long end = HEADER_SIZE;
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+        while (end + 8 <= size) {
+            lengthBuffer.clear();
+            channel.read(lengthBuffer, end);
+            int length = lengthBuffer.getInt(0);
+            if (length <= 0 || length > MAX_RECORD_SIZE || end + length + 8 > size) {
+                break;
+            }
+            lengthBuffer.clear();
+            channel.read(lengthBuffer, end + 4 + length);
+            if (lengthBuffer.getInt(0) != length) {
+                break;
+            }
+            end += length + 8;
+        }
+        return end;
+    }
+
+    // 以 end 结尾的是否是一条完整记录
+    private static boolean isCompleteRecordEndingAt(FileChannel channel, long end) throws IOException {
+        return recordStartBefore(channel, end) >= 0;
+    }
+
+    /**
+     * 获取以 end 结尾的记录的起始位置
+     *
+     * @return 记录起始位置，不是完整记录时返回 -1
+     */
+    public static long recordStartBefore(FileChannel channel, long end) throws IOException {
+        if (end < HEADER_SIZE + 8) {
+            return -1;
+        }
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+        channel.read(lengthBuffer, end - 4);
+        int length = lengthBuffer.getInt(0);
+        long start = end - 8 - length;
+        if (length <= 0 || length > MAX_RECORD_SIZE || start < HEADER_SIZE) {
+            return -1;
+        }
+        lengthBuffer.clear();
+        channel.read(lengthBuffer, start);
+        return lengthBuffer.getInt(0) == length ? start : -1;
+    }
+
+    /**
+     * 读取指定位置的一条记录
+     *
+     * @param segment 整个日志文件的只读映射
+     * @param offset  记录起始位置
+     * @return 记录，位置无效或记录不完整时返回 null
+     */
+    public static LogEntry readAt(ByteBuffer segment, long offset) throws IOException {
+        if (offset < HEADER_SIZE || offset + 8 > segment.limit()) {
+            return null;
+        }
+        int position = (int) offset;
+        int length = segment.getInt(position);
+        if (length <= 0 || length > MAX_RECORD_SIZE || position + 8L + length > segment.limit()
+                || segment.getInt(position + 4 + length) != length) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        ByteBuffer view = segment.duplicate();
+        view.position(position + 4);
+        view.get(payload);
+        return decode(new DataInputStream(new ByteArrayInputStream(payload)));
+    }
+}
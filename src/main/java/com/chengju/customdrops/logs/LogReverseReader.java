@@ -0,0 +1,101 @@
+package com.chengju.customdrops.logs;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 从文件末尾反向读取一个日志文件中的记录（最新的在前，见 {@link LogRecordCodec}）。
+ * 按块从后往前读取文件，利用记录末尾的长度定位上一条记录；只需要最近几条记录时，
+ * 读取量只与需要的记录数有关，而与文件大小无关。
+ * 末尾正在写入（或宕机留下）的不完整记录会被跳过；遇到损坏的记录时停止。
+ */
+public class LogReverseReader implements Closeable {
+
+    // 每次从文件读取的块大小
+    private static final int BLOCK_SIZE = 16 * 1024;
+
+    private final FileChannel channel;
+    private ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+    // 缓冲区中数据对应的文件位置 [blockStart, blockStart + block.limit())
+    private long blockStart;
+    // 下一条要返回的记录的结束位置
+    private long position;
+
+    public LogReverseReader(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(LogRecordCodec.HEADER_SIZE);
+            this.channel.read(header, 0);
+            header.flip();
+            if (!LogRecordCodec.isValidHeader(header)) {
+                throw new IOException("不是有效的掉落日志文件: " + file.getName());
+            }
+            this.position = LogRecordCodec.completeEnd(this.channel, this.channel.size());
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+        this.block.limit(0);
+        this.blockStart = this.position;
+    }
+
+    /**
+     * 读取上一条记录
+     *
+     * @return 上一条记录，已读到文件开头（或遇到损坏的记录）时返回 null
+     */
+    public LogEntry next() throws IOException {
+        if (this.position < LogRecordCodec.HEADER_SIZE + 8) {
+            return null;
+        }
+        load(this.position - 4);
+        int length = this.block.getInt((int) (this.position - 4 - this.blockStart));
+        long start = this.position - 8 - length;
+        if (length <= 0 || length > LogRecordCodec.MAX_RECORD_SIZE || start < LogRecordCodec.HEADER_SIZE) {
+            this.position = 0;
+            return null;
+        }
+        load(start);
+        int offset = (int) (start - this.blockStart);
+        if (this.block.getInt(offset) != length) {
+            this.position = 0;
+            return null;
+        }
+        this.position = start;
+        return LogRecordCodec.decode(new DataInputStream(
+                new ByteArrayInputStream(this.block.array(), offset + 4, length)));
+    }
+
+    // 保证从 from 到当前位置的数据都在缓冲区中（向前多读一整块）
+    private void load(long from) throws IOException {
+        if (from >= this.blockStart) {
+            return;
+        }
+        long needed = this.position - from;
+        long start = Math.max(0L, this.position - Math.max(BLOCK_SIZE, needed));
+        int size = (int) (this.position - start);
+        if (size > this.block.capacity()) {
+            this.block = ByteBuffer.allocate(size);
+        }
+        this.block.clear();
+        this.block.limit(size);
+        while (this.block.hasRemaining()) {
+            if (this.channel.read(this.block, start + this.block.position()) < 0) {
+                throw new IOException("日志文件在读取时被截断");
+            }
+        }
+        this.block.flip();
+        this.blockStart = start;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
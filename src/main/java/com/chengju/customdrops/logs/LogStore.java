@@ -0,0 +1,89 @@
+package com.chengju.customdrops.logs;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * 掉落日志存储后端。
+ * <p>
+ * 写入只由日志写入线程调用（见 {@link LogWriter}）；查询可在任意线程调用，实现需自行保证线程安全。
+ * 查询的日期范围均按服务器本地时区计算，包含首尾两天，结果按时间顺序排列。
+ */
+public interface LogStore {
+
+    // 存储后端名称（用于日志和统计显示）
+    String getName();
+
+    /**
+     * 追加一批记录（可能跨越多天）
+     * @param entries 记录（按提交顺序）
+     */
+    void append(List<LogEntry> entries) throws IOException;
+
+    /**
+     * 把已追加的记录强制写入磁盘（fsync），返回后断电也不会丢失。
+     * 由写入线程每次刷写调用一次，之后才可以在发放日志中标记这些记录已写入存储
+     */
+    void sync() throws IOException;
+
+    /**
+     * 查询某个玩家在日期范围内的记录
+     * @param playerId 玩家UUID
+     * @param playerName 玩家名（用于匹配迁移的、没有UUID的旧记录）
+     */
+    List<LogEntry> readPlayer(UUID playerId, String playerName, LocalDate from, LocalDate to) throws IOException;
+
+    /**
+     * 从最新的记录开始反向查找，找到 limit 条符合条件的记录后立即停止
+     * @param playerId 玩家UUID，为 null 时不限玩家
+     * @param playerName 玩家名（用于匹配迁移的、没有UUID的旧记录）
+     * @param limit 最多返回的记录数
+     * @param filter 额外的筛选条件（如来源、掉落物），为 null 时不筛选
+     * @return 记录（最新的在前）
+     */
+    List<LogEntry> readLatest(UUID playerId, String playerName, LocalDate from, LocalDate to,
+                              int limit, Predicate<LogEntry> filter) throws IOException;
+
+    /**
+     * 按时间顺序查询某种掉落物在日期范围内的记录，找到 limit 条符合条件的记录后立即停止
+     * @param itemName 掉落物名称
+     * @param limit 最多返回的记录数
+     * @param filter 额外的筛选条件（如精确的时间范围），为 null 时不筛选
+     */
+    List<LogEntry> readByDrop(String itemName, LocalDate from, LocalDate to,
+                              int limit, Predicate<LogEntry> filter) throws IOException;
+
+    /**
+     * 按时间顺序逐条读取日期范围内的所有记录，不在内存中收集结果（用于导出等大范围读取）
+     * @param visitor 处理每条记录，返回 false 时停止读取
+     */
+    void scan(LocalDate from, LocalDate to, Visitor visitor) throws IOException;
+
+    /**
+     * 压缩早于指定日期的记录（压缩后仍可查询）
+     * @param before 该日期之前（不含）的记录
+     */
+    void compact(LocalDate before) throws IOException;
+
+    /**
+     * 删除早于指定日期的记录
+     * @param before 该日期之前（不含）的记录
+     */
+    void purge(LocalDate before) throws IOException;
+
+    // 关闭存储，释放文件或数据库连接
+    void close() throws IOException;
+
+    /**
+     * 逐条处理 {@link #scan} 读取到的记录
+     */
+    interface Visitor {
+        /**
+         * @return 是否继续读取
+         */
+        boolean visit(LogEntry entry) throws IOException;
+    }
+}
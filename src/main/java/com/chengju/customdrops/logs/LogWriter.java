@@ -0,0 +1,307 @@
+package com.chengju.customdrops.logs;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * 异步批量日志写入器。
+ * <p>
+ * 调用方只把记录放入有界队列；专用写入线程每个刷写间隔取出队列中的全部记录，
+ * 交给批量处理器一次性写入（同一文件在一次刷写中只读写一次）。
+ * 队列已满时按 {@link OverflowPolicy} 处理，避免主线程被磁盘 I/O 拖慢；
+ * 被拒绝或挤出的记录交给丢弃处理器（如由发放日志保留并补写）。
+ */
+public class LogWriter implements Runnable {
+
+    /**
+     * 队列已满时的处理方式
+     */
+    public enum OverflowPolicy {
+        // 最多等待 block-timeout 毫秒，仍无空间则丢弃新记录
+        BLOCK,
+        // 直接丢弃新记录
+        DROP_NEWEST,
+        // 丢弃队列中最旧的记录，为新记录腾出空间
+        DROP_OLDEST;
+
+        // 解析配置值，无效时返回默认值
+        public static OverflowPolicy parse(String value, OverflowPolicy def) {
+            if (value == null) {
+                return def;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return def;
+            }
+        }
+    }
+
+    /**
+     * 批量处理器（只在写入线程中调用），写入失败时抛出异常
+     */
+    public interface BatchHandler {
+        void write(List<LogEntry> batch) throws IOException;
+    }
+
+    private final Logger logger;
+    private final BlockingQueue<LogEntry> queue;
+    private final int capacity;
+    private final long flushInterval;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeout;
+    // 批量处理器（只在写入线程中调用）
+    private final BatchHandler batchHandler;
+    // 丢弃处理器（在提交记录的线程中调用，可为 null）
+    private final Consumer<LogEntry> dropHandler;
+
+    private Thread thread;
+    // 写入线程是否应继续运行（受 this 锁保护）
+    private boolean running;
+
+    // 统计数据（written、flushCount 与刷写耗时只统计成功的刷写）
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong failedEntries = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+    // 已报告过的丢弃数量（只在写入线程中访问）
+    private long reportedDropped;
+
+    public LogWriter(Logger logger, int capacity, long flushInterval, OverflowPolicy overflowPolicy,
+                     long blockTimeout, BatchHandler batchHandler, Consumer<LogEntry> dropHandler) {
+        this.logger = logger;
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.flushInterval = flushInterval;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeout = blockTimeout;
+        this.batchHandler = batchHandler;
+        this.dropHandler = dropHandler;
+    }
+
+    // 启动写入线程
+    public void start() {
+        start(null);
+    }
+
+    /**
+     * 启动写入线程
+     *
+     * @param initializer 在写入线程中、第一次刷写之前执行的任务（如迁移旧数据），可为 null
+     */
+    public synchronized void start(Runnable initializer) {
+        if (this.thread != null) {
+            return;
+        }
+        this.running = true;
+        this.thread = new Thread(() -> {
+            if (initializer != null) {
+                try {
+                    initializer.run();
+                } catch (Exception e) {
+                    this.logger.warning("日志写入线程初始化失败: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+            run();
+        }, "CustomDrops-LogWriter");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 提交一条记录（可在任意线程调用）
+     *
+     * @return 记录是否已进入队列
+     */
+    public boolean submit(LogEntry entry) {
+        boolean accepted;
+        switch (this.overflowPolicy) {
+            case DROP_NEWEST:
+                accepted = this.queue.offer(entry);
+                break;
+            case DROP_OLDEST:
+                while (!(accepted = this.queue.offer(entry))) {
+                    LogEntry evicted = this.queue.poll();
+                    if (evicted != null) {
+                        drop(evicted);
+                    }
+                }
+                break;
+            case BLOCK:
+            default:
+                try {
+                    accepted = this.queue.offer(entry, this.blockTimeout, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    accepted = false;
+                }
+                break;
+        }
+        if (accepted) {
+            this.enqueued.incrementAndGet();
+        } else {
+            drop(entry);
+        }
+        return accepted;
+    }
+
+    // 记录一条未能写入队列的记录
+    private void drop(LogEntry entry) {
+        this.dropped.incrementAndGet();
+        if (this.dropHandler != null) {
+            this.dropHandler.accept(entry);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            boolean stopping;
+            synchronized (this) {
+                if (this.running) {
+                    try {
+                        // 等待下一个刷写周期（关闭时提前唤醒）
+                        wait(this.flushInterval);
+                    } catch (InterruptedException e) {
+                        this.running = false;
+                    }
+                }
+                stopping = !this.running;
+            }
+
+            flush();
+            if (stopping) {
+                return;
+            }
+        }
+    }
+
+    // 取出队列中的全部记录并批量写入
+    private void flush() {
+        List<LogEntry> batch = new ArrayList<>(Math.min(this.queue.size(), this.capacity));
+        this.queue.drainTo(batch);
+
+        long droppedNow = this.dropped.get();
+        if (droppedNow > this.reportedDropped) {
+            this.logger.warning("日志写入队列已满，已丢弃 " + (droppedNow - this.reportedDropped) + " 条记录");
+            this.reportedDropped = droppedNow;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            this.batchHandler.write(batch);
+        } catch (Exception e) {
+            this.failedFlushes.incrementAndGet();
+            this.failedEntries.addAndGet(batch.size());
+            this.logger.warning("批量写入玩家日志时出错: " + batch.size() + " 条记录 (" + e.getMessage() + ")");
+            e.printStackTrace();
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        this.written.addAndGet(batch.size());
+        this.flushCount.incrementAndGet();
+        this.totalFlushNanos.addAndGet(elapsed);
+        this.lastFlushNanos = elapsed;
+        if (elapsed > this.maxFlushNanos) {
+            this.maxFlushNanos = elapsed;
+        }
+    }
+
+    /**
+     * 停止写入线程，并写完队列中剩余的记录
+     *
+     * @param timeoutMillis 最长等待时间
+     */
+    public void close(long timeoutMillis) {
+        Thread writerThread;
+        synchronized (this) {
+            this.running = false;
+            notifyAll();
+            writerThread = this.thread;
+        }
+        if (writerThread == null) {
+            return;
+        }
+        try {
+            writerThread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            this.logger.warning("日志写入线程未能在 " + timeoutMillis + " 毫秒内结束，剩余 " + this.queue.size() + " 条记录未写入");
+        }
+    }
+
+    // 当前队列中等待写入的记录数
+    public int getQueueDepth() {
+        return this.queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return this.capacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return this.overflowPolicy;
+    }
+
+    public long getEnqueued() {
+        return this.enqueued.get();
+    }
+
+    public long getWritten() {
+        return this.written.get();
+    }
+
+    public long getDropped() {
+        return this.dropped.get();
+    }
+
+    public long getFlushCount() {
+        return this.flushCount.get();
+    }
+
+    // 写入失败的刷写次数
+    public long getFailedFlushes() {
+        return this.failedFlushes.get();
+    }
+
+    // 写入失败的刷写中包含的记录数
+    public long getFailedEntries() {
+        return this.failedEntries.get();
+    }
+
+    // 最近一次刷写耗时（毫秒）
+    public double getLastFlushMillis() {
+        return this.lastFlushNanos / 1_000_000.0D;
+    }
+
+    // 最长一次刷写耗时（毫秒）
+    public double getMaxFlushMillis() {
+        return this.maxFlushNanos / 1_000_000.0D;
+    }
+
+    // 平均刷写耗时（毫秒）
+    public double getAverageFlushMillis() {
+        long count = this.flushCount.get();
+        return count == 0 ? 0.0D : this.totalFlushNanos.get() / 1_000_000.0D / count;
+    }
+}
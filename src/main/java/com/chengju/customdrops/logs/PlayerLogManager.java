@@ -1,140 +1,497 @@
 package com.chengju.customdrops.logs;
 
 import com.chengju.customdrops.CustomDropsPlugin;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
+import com.chengju.customdrops.PluginConfiguration;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 import java.io.File;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class PlayerLogManager {
 
     private final CustomDropsPlugin plugin;
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+    // 日志存储目录
+    private final File logDir;
+    // 日志存储后端（默认为按天滚动的日志段 drop_logs/yyyy-MM-dd.log + .idx，start 时按配置选择）
+    private LogStore store;
+    // 旧版 YAML 日志目录及迁移后的备份目录
+    private final File legacyDir;
+    private final File legacyBackupDir;
+    // 异步批量写入器（start 之前为 null）
+    private LogWriter writer;
+    // 奖励发放预写日志（未启用时为 null）
+    private GrantJournal journal;
+    // 启动写入线程时使用的日志设置（存储后端、写入队列、发放日志只在启动时生效）
+    private PluginConfiguration.LogConfig startupConfig;
+    // 最近查询结果缓存（玩家UUID -> 结果），玩家获得新物品时失效
+    private final Map<UUID, RecentLogs> queryCache = new ConcurrentHashMap<>();
+    // 查询缓存失效计数（按玩家UUID分槽，内存固定），读取期间计数变化的结果不放入缓存
+    private final AtomicLongArray cacheVersions = new AtomicLongArray(256);
+    // 正在进行的导出（同一时间只允许一个，没有时为 null）
+    private final AtomicReference<LogExporter> export = new AtomicReference<>();
 
     public PlayerLogManager(CustomDropsPlugin plugin) {
         this.plugin = plugin;
+        this.logDir = new File(plugin.getDataFolder(), "drop_logs");
+        this.store = new SegmentLogStore(plugin.getLogger(), logDir);
+        this.legacyDir = new File(plugin.getDataFolder(), "player_logs");
+        this.legacyBackupDir = new File(plugin.getDataFolder(), "player_logs_legacy");
     }
 
     /**
-     * 记录玩家获取物品
-     * @param player 玩家对象
-     * @param itemName 物品名称
-     * @param source 获取来源
+     * 按配置启动异步写入线程（先在写入线程中补写发放日志中未写入存储的记录，存在旧版日志时再迁移）
      */
-    public void logItemObtained(Player player, String itemName, String source) {
-        String dateStr = dateFormat.format(new Date());
-        String timeStr = timeFormat.format(new Date());
-
-        // 获取日志文件
-        File logFile = getPlayerLogFile(player, dateStr);
-        if (logFile == null) {
-            plugin.getLogger().warning("无法创建日志文件: " + dateStr);
+    public void start() {
+        if (writer != null) {
             return;
         }
+        PluginConfiguration.LogConfig config = plugin.getConfigManager().getCurrentConfig().getLogs();
+        startupConfig = config;
+        store = createStore(config.store);
 
-        // 创建或加载YAML配置
-        YamlConfiguration config = YamlConfiguration.loadConfiguration(logFile);
-
-        // 获取玩家日志节点
-        String playerName = player.getName();
-        ConfigurationSection playerSection = config.getConfigurationSection(playerName);
-        if (playerSection == null) {
-            playerSection = config.createSection(playerName);
+        List<GrantJournal.Recovered> recovered = Collections.emptyList();
+        if (config.journalEnabled) {
+            GrantJournal grantJournal = new GrantJournal(new File(logDir, "grants.journal"));
+            try {
+                recovered = grantJournal.open();
+                journal = grantJournal;
+            } catch (IOException e) {
+                plugin.getLogger().warning("无法打开发放日志，本次运行不记录发放日志: " + e.getMessage());
+            }
         }
 
-        // 添加新记录（格式：物品名称(来源)
-        String logEntry = itemName + "(" + source + ")";
-        playerSection.set(timeStr, logEntry);
+        // 开启发放日志时，未能进入队列的记录仍保留在发放日志中，由写入线程随下一批补写
+        GrantJournal grantJournal = journal;
+        writer = new LogWriter(plugin.getLogger(), config.queueCapacity, config.flushInterval, config.overflowPolicy,
+                config.blockTimeout, this::writeBatch,
+                grantJournal != null ? entry -> grantJournal.dropped(entry.getSequence()) : null);
+        List<GrantJournal.Recovered> replay = recovered;
+        Runnable migration = createMigration();
+        writer.start(() -> {
+            replayJournal(replay);
+            if (migration != null) {
+                migration.run();
+            }
+        });
+    }
 
-        // 保存文件
+    // 把上次运行中已发放、但未写入存储的记录补写进存储（在写入线程中调用）
+    private void replayJournal(List<GrantJournal.Recovered> recovered) {
+        if (recovered.isEmpty()) {
+            return;
+        }
+        List<LogEntry> missing = new ArrayList<>();
+        // 玩家UUID+日期 -> 存储中已有的记录
+        Map<String, List<LogEntry>> storedLogs = new HashMap<>();
         try {
-            config.save(logFile);
-            plugin.getLogger().info("已记录: " + playerName + " 获得了 " + itemName + " (" + source + ")");
+            for (GrantJournal.Recovered grant : recovered) {
+                LogEntry entry = grant.entry;
+                if (!grant.complete) {
+                    plugin.getLogger().warning("上次运行中奖励可能未完整发放: " + entry.getPlayerName() + " "
+                            + entry.getItemName() + "(" + entry.getSource() + ") "
+                            + Instant.ofEpochMilli(entry.getTimestamp()).atZone(ZoneId.systemDefault()).toLocalDateTime());
+                }
+                LocalDate date = toDate(entry.getTimestamp());
+                List<LogEntry> stored = storedLogs.get(entry.getPlayerId() + "|" + date);
+                if (stored == null) {
+                    stored = store.readPlayer(entry.getPlayerId(), entry.getPlayerName(), date, date);
+                    storedLogs.put(entry.getPlayerId() + "|" + date, stored);
+                }
+                if (stored.stream().noneMatch(entry::sameRecord)) {
+                    missing.add(entry);
+                }
+            }
+            store.append(missing);
+            store.sync();
         } catch (IOException e) {
-            plugin.getLogger().warning("保存玩家日志时出错: " + playerName);
-            e.printStackTrace();
+            plugin.getLogger().warning("从发放日志恢复记录失败，下次启动时重试: " + e.getMessage());
+            return;
         }
+        List<LogEntry> replayed = new ArrayList<>(recovered.size());
+        for (GrantJournal.Recovered grant : recovered) {
+            replayed.add(grant.entry);
+        }
+        journal.stored(replayed);
+        plugin.getLogger().info("已从发放日志恢复 " + missing.size() + " 条未写入的记录");
+    }
+
+    // 按配置创建存储后端，数据库无法打开时退回文件存储
+    private LogStore createStore(String type) {
+        if ("h2".equalsIgnoreCase(type)) {
+            try {
+                return new H2LogStore(new File(new File(logDir, "h2"), "droplogs"));
+            } catch (IOException | LinkageError e) {
+                plugin.getLogger().warning("无法打开H2日志数据库，改用文件存储: " + e.getMessage());
+            }
+        } else if (!"file".equalsIgnoreCase(type)) {
+            plugin.getLogger().warning("未知的日志存储类型: " + type + "，使用文件存储");
+        }
+        return new SegmentLogStore(plugin.getLogger(), logDir);
+    }
+
+    // 存在旧版日志时创建迁移任务（玩家名 -> UUID 的对应关系在主线程中读取）
+    private Runnable createMigration() {
+        if (!LegacyLogMigrator.hasLegacyLogs(legacyDir)) {
+            return null;
+        }
+        Map<String, UUID> playerIds = new HashMap<>();
+        for (OfflinePlayer offlinePlayer : Bukkit.getOfflinePlayers()) {
+            if (offlinePlayer.getName() != null) {
+                playerIds.put(offlinePlayer.getName().toLowerCase(Locale.ROOT), offlinePlayer.getUniqueId());
+            }
+        }
+        plugin.getLogger().info("发现旧版玩家日志，将在后台迁移为新的日志格式...");
+        LegacyLogMigrator migrator = new LegacyLogMigrator(plugin.getLogger(), legacyDir, legacyBackupDir, playerIds);
+        LogStore target = store;
+        return () -> migrator.migrate(target);
     }
 
     /**
-     * 获取玩家日志文件
+     * 记录玩家获取物品（在执行奖励动作之前调用；只放入发放日志缓冲区和写入队列，不在调用线程进行磁盘 I/O）
      * @param player 玩家对象
-     * @param dateStr 日期字符串 (格式: yyyy-MM-dd)
-     * @return 日志文件对象
+     * @param itemName 物品名称
+     * @param source 获取来源
+     * @return 发放流水号，动作执行完后传给 {@link #completeGrant(long)}（未启用发放日志时为 0）
      */
-    private File getPlayerLogFile(Player player, String dateStr) {
-        // 解析日期
-        String[] dateParts = dateStr.split("-");
-        if (dateParts.length != 3) {
-            plugin.getLogger().warning("无效的日期格式: " + dateStr);
-            return null;
+    public long logItemObtained(Player player, String itemName, String source) {
+        long sequence = journal != null ? journal.nextSequence() : 0L;
+        LogEntry entry = new LogEntry(System.currentTimeMillis(), player.getUniqueId(), player.getName(),
+                itemName, source, player.getWorld().getName(), sequence);
+        if (journal != null) {
+            journal.begin(entry);
         }
+        invalidateCache(player.getUniqueId());
+        if (writer == null) {
+            // 写入线程未启动时直接写入
+            try {
+                writeBatch(Collections.singletonList(entry));
+            } catch (IOException e) {
+                plugin.getLogger().warning("保存玩家日志时出错: " + itemName + " (" + e.getMessage() + ")");
+            }
+            return sequence;
+        }
+        writer.submit(entry);
+        return sequence;
+    }
 
-        // 创建目录结构
-        File logDir = new File(plugin.getDataFolder(), "player_logs");
-        File yearDir = new File(logDir, dateParts[0]);
-        File monthDir = new File(yearDir, dateParts[1]);
-        File dayDir = new File(monthDir, dateParts[2]);
+    /**
+     * 标记一次发放的奖励动作已执行完
+     * @param sequence {@link #logItemObtained} 返回的发放流水号
+     */
+    public void completeGrant(long sequence) {
+        if (journal != null && sequence > 0) {
+            journal.complete(sequence);
+        }
+    }
 
-        if (!dayDir.exists() && !dayDir.mkdirs()) {
-            plugin.getLogger().warning("无法创建日志目录: " + dayDir.getAbsolutePath());
-            return null;
+    /**
+     * 批量写入日志记录（在写入线程中调用），整批交给存储后端一次写入
+     * @param batch 本次刷写的记录（按提交顺序）
+     * @throws IOException 写入存储失败（记录仍保留在发放日志中）
+     */
+    private void writeBatch(List<LogEntry> batch) throws IOException {
+        List<LogEntry> entries = batch;
+        if (journal != null) {
+            // 组提交：本次刷写之前的所有发放记录一次写入发放日志并 fsync
+            try {
+                journal.sync();
+            } catch (IOException e) {
+                plugin.getLogger().warning("写入发放日志时出错: " + e.getMessage());
+            }
+            // 写入队列已满时未能进入队列的记录随本批一起写入（写入失败时仍保留在发放日志中，下次启动时补写）
+            List<LogEntry> dropped = journal.takeDropped();
+            if (!dropped.isEmpty()) {
+                entries = new ArrayList<>(batch.size() + dropped.size());
+                entries.addAll(batch);
+                entries.addAll(dropped);
+                entries.sort(Comparator.comparingLong(LogEntry::getSequence));
+            }
         }
+        store.append(entries);
+        if (journal != null) {
+            // 记录 fsync 到存储之后才能被 CHECKPOINT 越过（每次刷写一次 fsync），未写入的不会被越过
+            store.sync();
+            journal.stored(entries);
+        }
+        // 记录落盘后再次失效，避免写入前的查询把旧结果放回缓存
+        for (LogEntry entry : entries) {
+            invalidateCache(entry.getPlayerId());
+        }
+    }
 
-        // 创建日志文件
-        return new File(dayDir, player.getName() + ".yml");
+    // 使玩家的查询缓存失效（先增加失效计数，再移除缓存）
+    private void invalidateCache(UUID playerId) {
+        cacheVersions.incrementAndGet(cacheSlot(playerId));
+        queryCache.remove(playerId);
+    }
+
+    private int cacheSlot(UUID playerId) {
+        return playerId.hashCode() & (cacheVersions.length() - 1);
+    }
+
+    // 时间戳转换为服务器本地日期
+    static LocalDate toDate(long timestamp) {
+        return Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    /**
+     * 获取日志存储后端
+     */
+    public LogStore getStore() {
+        return store;
     }
 
     /**
-     * 获取玩家最近日志
+     * 执行分层保留策略（在异步任务中调用）：近期日志保持原样，较早的按天压缩归档，超过保留期限的删除
+     * @param compressAfterDays 超过该天数的日志压缩归档，0表示不压缩
+     * @param retentionDays 超过该天数的日志删除，0表示永久保留
+     */
+    public void applyRetention(int compressAfterDays, int retentionDays) {
+        LocalDate today = LocalDate.now();
+        try {
+            if (compressAfterDays > 0) {
+                store.compact(today.minusDays(compressAfterDays));
+            }
+            if (retentionDays > 0) {
+                LocalDate cutoff = today.minusDays(retentionDays);
+                store.purge(cutoff);
+                purgeLegacyBackup(cutoff);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("清理日志时出错: " + e.getMessage());
+        }
+    }
+
+    // 删除已迁移旧日志备份中早于 cutoff 的日期目录（yyyy/MM/dd，只根据目录名判断）
+    private void purgeLegacyBackup(LocalDate cutoff) {
+        File[] years = legacyBackupDir.listFiles(File::isDirectory);
+        if (years == null) {
+            return;
+        }
+        for (File yearDir : years) {
+            File[] months = yearDir.listFiles(File::isDirectory);
+            for (File monthDir : months == null ? new File[0] : months) {
+                File[] days = monthDir.listFiles(File::isDirectory);
+                for (File dayDir : days == null ? new File[0] : days) {
+                    try {
+                        LocalDate date = LocalDate.of(Integer.parseInt(yearDir.getName()),
+                                Integer.parseInt(monthDir.getName()), Integer.parseInt(dayDir.getName()));
+                        if (date.isBefore(cutoff)) {
+                            deleteTree(dayDir);
+                        }
+                    } catch (RuntimeException ignored) {
+                        // 不是按日期命名的目录
+                    }
+                }
+                monthDir.delete(); // 仅在已清空时成功
+            }
+            yearDir.delete();
+        }
+    }
+
+    private static void deleteTree(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteTree(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * 获取启动写入线程时使用的日志设置，未启动时为 null
+     */
+    public PluginConfiguration.LogConfig getStartupConfig() {
+        return startupConfig;
+    }
+
+    /**
+     * 获取异步写入器（用于查看队列深度、刷写耗时等统计），未启动时为 null
+     */
+    public LogWriter getWriter() {
+        return writer;
+    }
+
+    /**
+     * 异步获取玩家最新的日志：从最新的记录开始反向读取，找够 limit 条即停止（或直接使用未过期的缓存结果），
+     * 完成后在主线程回调
      * @param player 玩家对象
      * @param days 天数
-     * @return 日志记录 (时间 -> 日志内容)
+     * @param limit 最多返回的记录数
+     * @param source 只查询该获取途径，为 null 时不限
+     * @param itemName 只查询该物品，为 null 时不限
+     * @param callback 在主线程调用，参数为日志记录（最新的在前）
      */
-    public Map<String, String> getRecentPlayerLogs(Player player, int days) {
-        Map<String, String> logs = new LinkedHashMap<>();
-
-        // 获取当前日期
-        Calendar calendar = Calendar.getInstance();
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-
-        // 遍历指定天数内的日志
-        for (int i = 0; i < days; i++) {
-            String dateStr = dateFormat.format(calendar.getTime());
-
-            // 获取日志文件
-            File logFile = getPlayerLogFile(player, dateStr);
-            if (logFile == null || !logFile.exists()) {
-                calendar.add(Calendar.DAY_OF_MONTH, -1);
-                continue;
-            }
-
-            // 加载日志
-            YamlConfiguration config = YamlConfiguration.loadConfiguration(logFile);
-            ConfigurationSection playerSection = config.getConfigurationSection(player.getName());
-            if (playerSection != null) {
-                for (String time : playerSection.getKeys(false)) {
-                    logs.put(dateStr + " " + time, playerSection.getString(time));
+    public void queryLatestPlayerLogs(Player player, int days, int limit, String source, String itemName,
+                                      Consumer<List<LogEntry>> callback) {
+        UUID playerId = player.getUniqueId();
+        String playerName = player.getName();
+        String key = days + "|" + source + "|" + itemName;
+        RecentLogs cached = queryCache.get(playerId);
+        if (cached != null && cached.key.equals(key) && (cached.complete || cached.logs.size() >= limit)
+                && cached.expiresAt > System.currentTimeMillis()) {
+            callback.accept(cached.logs.subList(0, Math.min(limit, cached.logs.size())));
+            return;
+        }
+
+        // 缓存时间可随配置重载变化，每次查询时读取当前配置
+        long queryCacheTtl = plugin.getConfigManager().getCurrentConfig().getLogs().queryCacheTtl;
+        // 读取之前记下失效计数
+        int slot = cacheSlot(playerId);
+        long version = cacheVersions.get(slot);
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            LocalDate today = LocalDate.now();
+            List<LogEntry> logs;
+            try {
+                logs = Collections.unmodifiableList(store.readLatest(playerId, playerName,
+                        today.minusDays(days - 1L), today, limit, filter(source, itemName)));
+            } catch (IOException e) {
+                plugin.getLogger().warning("读取玩家日志时出错: " + playerName + " (" + e.getMessage() + ")");
+                logs = Collections.emptyList();
+            }
+            if (queryCacheTtl > 0) {
+                long now = System.currentTimeMillis();
+                queryCache.values().removeIf(recent -> recent.expiresAt <= now);
+                RecentLogs recent = new RecentLogs(key, now + queryCacheTtl, logs, logs.size() < limit);
+                queryCache.put(playerId, recent);
+                // 先放入再检查：读取期间有新记录时撤回（失效方先加计数再移除，两种顺序都不会留下旧结果）
+                if (cacheVersions.get(slot) != version) {
+                    queryCache.remove(playerId, recent);
                 }
             }
+            List<LogEntry> result = logs;
+            if (plugin.isEnabled()) {
+                plugin.getServer().getScheduler().runTask(plugin, () -> callback.accept(result));
+            }
+        });
+    }
 
-            calendar.add(Calendar.DAY_OF_MONTH, -1);
+    /**
+     * 异步查询某种掉落物在时间范围内最早的若干条记录（跨玩家，用于管理员排查），找够 limit 条即停止，
+     * 完成后在主线程回调
+     * @param itemName 掉落物名称
+     * @param from 起始时间（毫秒时间戳，包含）
+     * @param to 结束时间（毫秒时间戳，包含）
+     * @param limit 最多返回的记录数
+     * @param callback 在主线程调用，参数为日志记录（按时间顺序）
+     */
+    public void searchByDrop(String itemName, long from, long to, int limit, Consumer<List<LogEntry>> callback) {
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<LogEntry> logs;
+            try {
+                logs = store.readByDrop(itemName, toDate(from), toDate(to), limit,
+                        entry -> entry.getTimestamp() >= from && entry.getTimestamp() <= to);
+            } catch (IOException e) {
+                plugin.getLogger().warning("查询掉落记录时出错: " + itemName + " (" + e.getMessage() + ")");
+                logs = Collections.emptyList();
+            }
+            List<LogEntry> result = logs;
+            if (plugin.isEnabled()) {
+                plugin.getServer().getScheduler().runTask(plugin, () -> callback.accept(result));
+            }
+        });
+    }
+
+    /**
+     * 在异步任务中把日期范围内的日志导出到 exports 目录，进度和结果发送给发起者
+     * @param from 起始日期（包含）
+     * @param to 结束日期（包含）
+     * @param format 导出格式
+     * @param sender 发起者
+     * @return 导出任务，已有导出正在进行时返回 null
+     */
+    public LogExporter startExport(LocalDate from, LocalDate to, LogExporter.Format format, CommandSender sender) {
+        File file = new File(new File(plugin.getDataFolder(), "exports"),
+                "drops_" + from + "_" + to + "." + format.extension);
+        LogExporter exporter = new LogExporter(plugin, store, from, to, format, file, sender);
+        if (!export.compareAndSet(null, exporter)) {
+            return null;
+        }
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                exporter.run();
+            } finally {
+                export.compareAndSet(exporter, null);
+            }
+        });
+        return exporter;
+    }
+
+    /**
+     * 取消正在进行的导出
+     * @return 是否有导出正在进行
+     */
+    public boolean cancelExport() {
+        LogExporter exporter = export.get();
+        if (exporter == null) {
+            return false;
         }
+        exporter.cancel();
+        return true;
+    }
 
-        return logs;
+    // 按获取途径和物品名称筛选，都为 null 时不筛选
+    static Predicate<LogEntry> filter(String source, String itemName) {
+        if (source == null && itemName == null) {
+            return null;
+        }
+        return entry -> (source == null || source.equals(entry.getSource()))
+                && (itemName == null || itemName.equals(entry.getItemName()));
     }
 
     /**
-     * 关闭日志管理器（清理资源）
+     * 关闭日志管理器（写完队列中剩余的记录后停止写入线程）
      */
     public void close() {
-        // 在实际项目中，这里会关闭文件流或数据库连接
+        cancelExport();
+        if (writer != null) {
+            writer.close(10000L);
+            writer = null;
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                plugin.getLogger().warning("关闭发放日志时出错: " + e.getMessage());
+            }
+            journal = null;
+        }
+        try {
+            store.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("关闭日志存储时出错: " + e.getMessage());
+        }
+        queryCache.clear();
         plugin.getLogger().info("日志管理器资源已释放");
     }
-}
\ No newline at end of file
+
+    // 缓存的查询结果
+    private static final class RecentLogs {
+        // 查询条件（天数、获取途径、物品名称）
+        final String key;
+        final long expiresAt;
+        final List<LogEntry> logs;
+        // 是否已包含符合条件的全部记录（不足 limit 条）
+        final boolean complete;
+
+        RecentLogs(String key, long expiresAt, List<LogEntry> logs, boolean complete) {
+            this.key = key;
+            this.expiresAt = expiresAt;
+            this.logs = logs;
+            this.complete = complete;
+        }
+    }
+}
@@ -0,0 +1,846 @@
+package com.chengju.customdrops.logs;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 按天滚动的日志段存储。
+ * <p>
+ * 每天一个日志段（yyyy-MM-dd.log，格式见 {@link LogRecordCodec}），并附带一个只追加的侧索引
+ * （yyyy-MM-dd.idx，每项 24 字节：UUID高位、UUID低位、记录偏移）。
+ * 查询某个玩家时只需查找索引，再从内存映射的日志段中按偏移读取该玩家的记录。
+ * <p>
+ * 较早的日志段可以压缩为归档（yyyy-MM-dd.log.gz，解压后与日志段格式相同，不再需要索引），
+ * 归档仍可查询，只是需要顺序解压扫描。替换归档之前先写入压缩标记（yyyy-MM-dd.compacted，
+ * 记录已压缩的日志段长度和新归档的大小），宕机后据此判断残留的日志段是否已在归档中。
+ * <p>
+ * 每天还有一个掉落物倒排索引（yyyy-MM-dd.drops，只追加：掉落物名称 -> 获得过的玩家UUID），
+ * 按掉落物查询时只读取当天获得过该掉落物的玩家的记录；不含该掉落物的日期直接跳过。压缩归档时保留。
+ * <p>
+ * 写入只在日志写入线程中进行；查询可在任意线程进行。
+ */
+public class SegmentLogStore implements LogStore {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final String LOG_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String ARCHIVE_SUFFIX = ".log.gz";
+    private static final String DROPS_SUFFIX = ".drops";
+    private static final String COMPACTED_SUFFIX = ".compacted";
+    private static final String TEMP_SUFFIX = ".tmp";
+    // 索引项大小：UUID高位 + UUID低位 + 偏移
+    static final int INDEX_ENTRY_SIZE = 24;
+    // 内存中缓存的段索引数量
+    private static final int INDEX_CACHE_SIZE = 32;
+
+    private final Logger logger;
+    private final File dir;
+    // 追加与压缩/删除日志段互斥
+    private final Object appendLock = new Object();
+    // 本次运行中已检查过完整性的日志段（持有 appendLock 时访问）
+    private final Set<LocalDate> preparedSegments = new HashSet<>();
+    // 上次 sync 之后有追加的日期（持有 appendLock 时访问）
+    private final Set<LocalDate> unsynced = new HashSet<>();
+    // 已加载的段索引（按访问顺序淘汰）
+    private final Map<LocalDate, SegmentIndex> indexes = new LinkedHashMap<LocalDate, SegmentIndex>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, SegmentIndex> eldest) {
+            return size() > INDEX_CACHE_SIZE;
+        }
+    };
+
+    // 已加载的掉落物倒排索引（按访问顺序淘汰，持有 appendLock 时访问）
+    private final Map<LocalDate, DayDrops> dropIndexes = new LinkedHashMap<LocalDate, DayDrops>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, DayDrops> eldest) {
+            return size() > INDEX_CACHE_SIZE;
+        }
+    };
+
+    public SegmentLogStore(Logger logger, File dir) {
+        this.logger = logger;
+        this.dir = dir;
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public void append(List<LogEntry> entries) throws IOException {
+        // 按日期分组，保持提交顺序
+        Map<LocalDate, List<LogEntry>> byDay = new LinkedHashMap<>();
+        for (LogEntry entry : entries) {
+            byDay.computeIfAbsent(PlayerLogManager.toDate(entry.getTimestamp()), date -> new ArrayList<>()).add(entry);
+        }
+        for (Map.Entry<LocalDate, List<LogEntry>> dayEntries : byDay.entrySet()) {
+            appendDay(dayEntries.getKey(), dayEntries.getValue());
+        }
+    }
+
+    @Override
+    public void sync() throws IOException {
+        synchronized (appendLock) {
+            // fsync 作用于文件本身，重新打开后 force 即可写入之前追加的内容
+            for (LocalDate date : unsynced) {
+                force(getSegmentFile(date));
+                force(getDropsFile(date));
+                force(getIndexFile(date));
+            }
+            unsynced.clear();
+        }
+    }
+
+    // 把文件内容强制写入磁盘（文件已被压缩删除时跳过，归档在压缩时已经 fsync）
+    private static void force(File file) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public List<LogEntry> readPlayer(UUID playerId, String playerName, LocalDate from, LocalDate to) throws IOException {
+        List<LogEntry> entries = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            entries.addAll(readPlayer(date, playerId, playerName));
+        }
+        return entries;
+    }
+
+    @Override
+    public List<LogEntry> readLatest(UUID playerId, String playerName, LocalDate from, LocalDate to,
+                                     int limit, Predicate<LogEntry> filter) throws IOException {
+        List<LogEntry> entries = new ArrayList<>(Math.min(limit, 1024));
+        for (LocalDate date = to; !date.isBefore(from) && entries.size() < limit; date = date.minusDays(1)) {
+            // 日志段中的记录比归档中的新
+            if (isLiveSegment(date)) {
+                File segmentFile = getSegmentFile(date);
+                if (playerId != null) {
+                    readLatestByIndex(date, segmentFile, playerId, playerName, limit, filter, entries);
+                } else {
+                    // 不限玩家时从日志段末尾反向读取
+                    try (LogReverseReader reader = new LogReverseReader(segmentFile)) {
+                        LogEntry entry;
+                        while (entries.size() < limit && (entry = reader.next()) != null) {
+                            if (filter == null || filter.test(entry)) {
+                                entries.add(entry);
+                            }
+                        }
+                    }
+                }
+            }
+            File archive = getArchiveFile(date);
+            if (entries.size() < limit && archive.exists()) {
+                // 归档只能顺序解压，读出当天符合条件的记录后倒序取用
+                List<LogEntry> archived = new ArrayList<>();
+                readArchive(archive, entry -> (playerId == null || entry.belongsTo(playerId, playerName))
+                        && (filter == null || filter.test(entry)), archived);
+                for (int i = archived.size() - 1; i >= 0 && entries.size() < limit; i--) {
+                    entries.add(archived.get(i));
+                }
+            }
+        }
+        return entries;
+    }
+
+    // 通过索引从后往前读取某个玩家在一天内的记录
+    private void readLatestByIndex(LocalDate date, File segmentFile, UUID playerId, String playerName,
+                                   int limit, Predicate<LogEntry> filter, List<LogEntry> entries) throws IOException {
+        long[] offsets = lookupPlayer(date, playerId);
+        if (offsets.length == 0) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(segmentFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (int i = offsets.length - 1; i >= 0 && entries.size() < limit; i--) {
+                LogEntry entry = LogRecordCodec.readAt(segment, offsets[i]);
+                if (entry != null && entry.belongsTo(playerId, playerName) && (filter == null || filter.test(entry))) {
+                    entries.add(entry);
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<LogEntry> readByDrop(String itemName, LocalDate from, LocalDate to,
+                                     int limit, Predicate<LogEntry> filter) throws IOException {
+        List<LogEntry> entries = new ArrayList<>(Math.min(limit, 1024));
+        Predicate<LogEntry> matches = entry -> entry.getItemName().equals(itemName) && (filter == null || filter.test(entry));
+        for (LocalDate date = from; !date.isAfter(to) && entries.size() < limit; date = date.plusDays(1)) {
+            File archive = getArchiveFile(date);
+            boolean live = isLiveSegment(date);
+            if (!live && !archive.exists()) {
+                continue;
+            }
+            // 通过倒排索引找出当天获得过该掉落物的玩家，没有则跳过这一天
+            Set<UUID> players = getDrops(date).players(itemName);
+            if (players.isEmpty()) {
+                continue;
+            }
+            if (archive.exists()) {
+                readArchive(archive, matches, entries, limit);
+            }
+            if (!live || entries.size() >= limit) {
+                continue;
+            }
+
+            // 只读取这些玩家的记录，按偏移（即写入顺序）排列
+            SegmentIndex index = getIndex(date);
+            Offsets offsets = new Offsets();
+            for (UUID playerId : players) {
+                for (long offset : index.lookup(playerId)) {
+                    offsets.add(offset);
+                }
+            }
+            long[] sorted = Arrays.copyOf(offsets.values, offsets.size);
+            Arrays.sort(sorted);
+            try (FileChannel channel = FileChannel.open(getSegmentFile(date).toPath(), StandardOpenOption.READ)) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                for (int i = 0; i < sorted.length && entries.size() < limit; i++) {
+                    LogEntry entry = LogRecordCodec.readAt(segment, sorted[i]);
+                    if (entry != null && matches.test(entry)) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public void scan(LocalDate from, LocalDate to, Visitor visitor) throws IOException {
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            // 归档中的记录比日志段中的早
+            File archive = getArchiveFile(date);
+            if (archive.exists()) {
+                try (LogFileReader reader = openArchive(archive)) {
+                    if (!visitAll(reader, visitor)) {
+                        return;
+                    }
+                }
+            }
+            if (isLiveSegment(date)) {
+                // 顺序读取到当前的末尾，正在写入的不完整记录会被跳过
+                try (LogFileReader reader = new LogFileReader(getSegmentFile(date))) {
+                    if (!visitAll(reader, visitor)) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean visitAll(LogFileReader reader, Visitor visitor) throws IOException {
+        LogEntry entry;
+        while ((entry = reader.next()) != null) {
+            if (!visitor.visit(entry)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void compact(LocalDate before) throws IOException {
+        int days = 0;
+        for (LocalDate date : listDates()) {
+            if (date.isBefore(before) && getSegmentFile(date).exists()) {
+                compactDay(date);
+                days++;
+            }
+        }
+        if (days > 0) {
+            logger.info("已压缩 " + days + " 天的掉落日志");
+        }
+    }
+
+    @Override
+    public void purge(LocalDate before) {
+        int days = 0;
+        synchronized (appendLock) {
+            for (LocalDate date : listDates()) {
+                if (!date.isBefore(before)) {
+                    continue;
+                }
+                File archive = getArchiveFile(date);
+                deleteSegment(date);
+                archive.delete();
+                getDropsFile(date).delete();
+                getCompactedFile(date).delete();
+                dropIndexes.remove(date);
+                new File(dir, archive.getName() + TEMP_SUFFIX).delete();
+                days++;
+            }
+        }
+        if (days > 0) {
+            logger.info("已删除 " + days + " 天的过期掉落日志");
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (indexes) {
+            indexes.clear();
+        }
+    }
+
+    // 日志段文件
+    public File getSegmentFile(LocalDate date) {
+        return new File(dir, DATE_FORMAT.format(date) + LOG_SUFFIX);
+    }
+
+    // 日志段的侧索引文件
+    public File getIndexFile(LocalDate date) {
+        return new File(dir, DATE_FORMAT.format(date) + INDEX_SUFFIX);
+    }
+
+    // 掉落物倒排索引文件
+    public File getDropsFile(LocalDate date) {
+        return new File(dir, DATE_FORMAT.format(date) + DROPS_SUFFIX);
+    }
+
+    // 压缩后的归档文件
+    public File getArchiveFile(LocalDate date) {
+        return new File(dir, DATE_FORMAT.format(date) + ARCHIVE_SUFFIX);
+    }
+
+    // 压缩标记文件（压缩完成、日志段删除之前存在）
+    public File getCompactedFile(LocalDate date) {
+        return new File(dir, DATE_FORMAT.format(date) + COMPACTED_SUFFIX);
+    }
+
+    // 目录中有日志文件（日志段、索引或归档）的日期，只根据文件名判断
+    private SortedSet<LocalDate> listDates() {
+        SortedSet<LocalDate> dates = new TreeSet<>();
+        String[] names = dir.list();
+        if (names == null) {
+            return dates;
+        }
+        for (String name : names) {
+            int dot = name.indexOf('.');
+            if (dot <= 0) {
+                continue;
+            }
+            try {
+                dates.add(LocalDate.parse(name.substring(0, dot), DATE_FORMAT));
+            } catch (DateTimeParseException ignored) {
+                // 不是按日期命名的文件
+            }
+        }
+        return dates;
+    }
+
+    /**
+     * 日志段是否包含归档之外的记录：
+     * 压缩完成后、删除日志段之前宕机留下的日志段，其长度和归档大小与压缩标记一致，内容已在归档中。
+     * 只比较记录的长度，不依赖文件修改时间（部分文件系统的精度只有 1~2 秒）。
+     */
+    private boolean isLiveSegment(LocalDate date) {
+        File segmentFile = getSegmentFile(date);
+        if (!segmentFile.exists()) {
+            return false;
+        }
+        File archive = getArchiveFile(date);
+        if (!archive.exists()) {
+            return true;
+        }
+        File marker = getCompactedFile(date);
+        if (!marker.exists()) {
+            return true;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(marker))) {
+            long segmentLength = in.readLong();
+            long archiveLength = in.readLong();
+            // 归档大小不符说明替换归档之前宕机，标记无效
+            return segmentFile.length() != segmentLength || archive.length() != archiveLength;
+        } catch (IOException e) {
+            // 写入标记时宕机留下的不完整标记，归档尚未替换
+            return true;
+        }
+    }
+
+    // 写入压缩标记并 fsync（替换归档之前调用）
+    private void writeCompactedMarker(LocalDate date, long segmentLength, long archiveLength) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(getCompactedFile(date))) {
+            out.write(ByteBuffer.allocate(16).putLong(segmentLength).putLong(archiveLength).array());
+            out.getFD().sync();
+        }
+    }
+
+    /**
+     * 将一天的日志段压缩进归档，然后删除日志段和索引。
+     * 归档已存在时（压缩后又写入了当天的记录）把日志段作为新的 gzip 成员追加到归档末尾，
+     * 解压后仍是一个连续的记录流。先写临时文件再替换，宕机不会损坏已有的归档。
+     * 替换之前写入压缩标记，替换之后、删除日志段之前宕机时，残留的日志段不会被当作新记录。
+     */
+    private void compactDay(LocalDate date) throws IOException {
+        synchronized (appendLock) {
+            File segmentFile = getSegmentFile(date);
+            File archive = getArchiveFile(date);
+            if (!isLiveSegment(date)) {
+                deleteSegment(date);
+                return;
+            }
+            boolean merge = archive.exists();
+            File temp = new File(dir, archive.getName() + TEMP_SUFFIX);
+            try (FileChannel log = FileChannel.open(segmentFile.toPath(), StandardOpenOption.READ);
+                 FileOutputStream out = new FileOutputStream(temp)) {
+                if (merge) {
+                    Files.copy(archive.toPath(), out);
+                }
+                GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+                long end = LogRecordCodec.completeEnd(log, log.size());
+                // 追加到已有归档时跳过文件头
+                long position = merge ? LogRecordCodec.HEADER_SIZE : 0;
+                ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                while (position < end) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                    int read = log.read(buffer, position);
+                    if (read < 0) {
+                        break;
+                    }
+                    gzip.write(buffer.array(), 0, read);
+                    position += read;
+                }
+                gzip.finish();
+                out.getFD().sync();
+            }
+            writeCompactedMarker(date, segmentFile.length(), temp.length());
+            Files.move(temp.toPath(), archive.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            deleteSegment(date);
+        }
+    }
+
+    // 删除日志段及其索引，最后删除压缩标记（持有 appendLock 时调用）
+    private void deleteSegment(LocalDate date) {
+        getSegmentFile(date).delete();
+        getIndexFile(date).delete();
+        getCompactedFile(date).delete();
+        preparedSegments.remove(date);
+        invalidate(date);
+    }
+
+    // 顺序解压一个归档，收集符合条件的记录
+    private static void readArchive(File archive, Predicate<LogEntry> filter, List<LogEntry> entries) throws IOException {
+        readArchive(archive, filter, entries, Integer.MAX_VALUE);
+    }
+
+    // 顺序解压一个归档，收集符合条件的记录，entries 达到 limit 条时停止
+    private static void readArchive(File archive, Predicate<LogEntry> filter, List<LogEntry> entries,
+                                    int limit) throws IOException {
+        try (LogFileReader archiveReader = openArchive(archive)) {
+            LogEntry entry;
+            while (entries.size() < limit && (entry = archiveReader.next()) != null) {
+                if (filter.test(entry)) {
+                    entries.add(entry);
+                }
+            }
+        }
+    }
+
+    // 打开一个归档的解压读取器
+    private static LogFileReader openArchive(File archive) throws IOException {
+        InputStream in = new FileInputStream(archive);
+        try {
+            return new LogFileReader(new GZIPInputStream(in, 64 * 1024), archive.getName());
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 将一天的记录追加到对应日志段，并追加索引（各一次写入）
+     * @param date 日期
+     * @param entries 记录（按时间顺序）
+     */
+    public void appendDay(LocalDate date, List<LogEntry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("无法创建日志目录: " + dir.getAbsolutePath());
+        }
+
+        // 所有记录编码到一个缓冲区
+        List<byte[]> records = new ArrayList<>(entries.size());
+        int total = 0;
+        for (LogEntry entry : entries) {
+            byte[] record = LogRecordCodec.encode(entry);
+            records.add(record);
+            total += record.length;
+        }
+
+        synchronized (appendLock) {
+            if (!preparedSegments.contains(date)) {
+                if (getSegmentFile(date).exists() && !isLiveSegment(date)) {
+                    // 压缩后未来得及删除的日志段，内容已在归档中
+                    deleteSegment(date);
+                } else if (!getSegmentFile(date).exists()) {
+                    // 删除日志段后宕机残留的压缩标记，不能用于新的日志段
+                    getCompactedFile(date).delete();
+                }
+            }
+            try (FileChannel log = FileChannel.open(getSegmentFile(date).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileChannel index = FileChannel.open(getIndexFile(date).toPath(),
+                         StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long position;
+                if (preparedSegments.add(date)) {
+                    // 本次运行中首次写入：截掉上次宕机留下的不完整记录，并核对索引
+                    position = LogRecordCodec.prepareAppend(log);
+                    reconcileIndex(date, log, position, index);
+                } else {
+                    position = log.size();
+                }
+
+                ByteBuffer logBuffer = ByteBuffer.allocate(total);
+                ByteBuffer indexBuffer = ByteBuffer.allocate(entries.size() * INDEX_ENTRY_SIZE);
+                long offset = position;
+                for (int i = 0; i < records.size(); i++) {
+                    byte[] record = records.get(i);
+                    UUID playerId = entries.get(i).getPlayerId();
+                    logBuffer.put(record);
+                    indexBuffer.putLong(playerId.getMostSignificantBits())
+                            .putLong(playerId.getLeastSignificantBits())
+                            .putLong(offset);
+                    offset += record.length;
+                }
+                logBuffer.flip();
+                indexBuffer.flip();
+
+                // 先写日志，再写掉落物索引，最后写玩家索引：
+                // 玩家索引中的偏移总是指向完整的记录，玩家索引一致时掉落物索引也是完整的
+                writeFully(log, logBuffer, position);
+                appendDrops(date, entries);
+                writeFully(index, indexBuffer, index.size());
+                unsynced.add(date);
+            }
+        }
+    }
+
+    /**
+     * 读取某个玩家在某一天的记录（按时间顺序）
+     * @param date 日期
+     * @param playerId 玩家UUID
+     * @param playerName 玩家名（用于匹配迁移的旧记录）
+     */
+    public List<LogEntry> readPlayer(LocalDate date, UUID playerId, String playerName) throws IOException {
+        List<LogEntry> entries = new ArrayList<>();
+        File archive = getArchiveFile(date);
+        if (archive.exists()) {
+            readArchive(archive, entry -> entry.belongsTo(playerId, playerName), entries);
+        }
+        if (!isLiveSegment(date)) {
+            return entries;
+        }
+
+        File segmentFile = getSegmentFile(date);
+        long[] offsets = lookupPlayer(date, playerId);
+        if (offsets.length == 0) {
+            return entries;
+        }
+
+        try (FileChannel channel = FileChannel.open(segmentFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (long offset : offsets) {
+                LogEntry entry = LogRecordCodec.readAt(segment, offset);
+                if (entry != null && entry.belongsTo(playerId, playerName)) {
+                    entries.add(entry);
+                }
+            }
+        }
+        return entries;
+    }
+
+    // 查找某个玩家（及没有UUID的旧记录）在一天内的记录偏移，按偏移（即写入顺序）排列
+    private long[] lookupPlayer(LocalDate date, UUID playerId) throws IOException {
+        SegmentIndex index = getIndex(date);
+        long[] offsets = index.lookup(playerId);
+        long[] unknownOffsets = index.lookup(LogEntry.UNKNOWN_PLAYER);
+        if (unknownOffsets.length == 0) {
+            return offsets;
+        }
+        long[] merged = Arrays.copyOf(offsets, offsets.length + unknownOffsets.length);
+        System.arraycopy(unknownOffsets, 0, merged, offsets.length, unknownOffsets.length);
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    // 获取（或加载）某一天的段索引
+    private SegmentIndex getIndex(LocalDate date) {
+        synchronized (indexes) {
+            return indexes.computeIfAbsent(date, day -> new SegmentIndex(getIndexFile(day)));
+        }
+    }
+
+    // 使缓存的段索引失效（索引文件被重建或删除后调用）
+    public void invalidate(LocalDate date) {
+        synchronized (indexes) {
+            indexes.remove(date);
+        }
+    }
+
+    /**
+     * 核对索引与日志段是否一致（索引的最后一项应指向日志段的最后一条记录），不一致时从日志段重建索引。
+     */
+    private void reconcileIndex(LocalDate date, FileChannel log, long logEnd, FileChannel index) throws IOException {
+        long indexSize = index.size();
+        long lastRecord = LogRecordCodec.recordStartBefore(log, logEnd);
+        if (indexSize % INDEX_ENTRY_SIZE == 0) {
+            if (indexSize == 0 && lastRecord < 0) {
+                return;
+            }
+            if (indexSize > 0 && lastRecord >= 0) {
+                ByteBuffer lastOffset = ByteBuffer.allocate(8);
+                index.read(lastOffset, indexSize - 8);
+                if (lastOffset.getLong(0) == lastRecord) {
+                    return;
+                }
+            }
+        }
+
+        logger.warning("日志索引与日志段不一致，正在重建: " + getIndexFile(date).getName());
+        // 掉落物索引可能也不完整，下次使用时从日志段重建
+        getDropsFile(date).delete();
+        dropIndexes.remove(date);
+        index.truncate(0);
+        ByteBuffer indexBuffer = ByteBuffer.allocate(64 * INDEX_ENTRY_SIZE);
+        ByteBuffer head = ByteBuffer.allocate(4 + 24);
+        long position = LogRecordCodec.HEADER_SIZE;
+        long indexPosition = 0;
+        while (position + 8 <= logEnd) {
+            head.clear();
+            log.read(head, position);
+            // 记录长度 + 时间戳 + UUID
+            int length = head.getInt(0);
+            indexBuffer.putLong(head.getLong(12)).putLong(head.getLong(20)).putLong(position);
+            if (!indexBuffer.hasRemaining()) {
+                indexBuffer.flip();
+                indexPosition += writeFully(index, indexBuffer, indexPosition);
+                indexBuffer.clear();
+            }
+            position += length + 8;
+        }
+        indexBuffer.flip();
+        writeFully(index, indexBuffer, indexPosition);
+        invalidate(date);
+    }
+
+    // 把新出现的（掉落物, 玩家）追加到掉落物索引（持有 appendLock 时调用）
+    private void appendDrops(LocalDate date, List<LogEntry> entries) throws IOException {
+        DayDrops drops = getDrops(date);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (LogEntry entry : entries) {
+            if (drops.add(entry.getItemName(), entry.getPlayerId())) {
+                DayDrops.write(out, entry.getItemName(), entry.getPlayerId());
+            }
+        }
+        if (bytes.size() > 0) {
+            try (FileOutputStream file = new FileOutputStream(getDropsFile(date), true)) {
+                bytes.writeTo(file);
+            }
+        }
+    }
+
+    // 获取（或加载）某一天的掉落物倒排索引，索引文件不存在时从日志段和归档重建
+    private DayDrops getDrops(LocalDate date) throws IOException {
+        synchronized (appendLock) {
+            DayDrops drops = dropIndexes.get(date);
+            if (drops == null) {
+                drops = loadDrops(date);
+                dropIndexes.put(date, drops);
+            }
+            return drops;
+        }
+    }
+
+    private DayDrops loadDrops(LocalDate date) throws IOException {
+        DayDrops drops = new DayDrops();
+        File file = getDropsFile(date);
+        if (file.exists()) {
+            byte[] data = Files.readAllBytes(file.toPath());
+            long valid = drops.read(data);
+            if (valid < data.length) {
+                // 截掉宕机时写入不完整的末尾
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                }
+            }
+            return drops;
+        }
+
+        // 旧数据没有索引文件：扫描一次日志段和归档后保存
+        File archive = getArchiveFile(date);
+        if (archive.exists()) {
+            readArchive(archive, entry -> {
+                drops.add(entry.getItemName(), entry.getPlayerId());
+                return false;
+            }, new ArrayList<>());
+        }
+        if (isLiveSegment(date)) {
+            try (LogFileReader reader = new LogFileReader(getSegmentFile(date))) {
+                LogEntry entry;
+                while ((entry = reader.next()) != null) {
+                    drops.add(entry.getItemName(), entry.getPlayerId());
+                }
+            }
+        }
+        if (!drops.isEmpty()) {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                drops.writeAll(out);
+            }
+        }
+        return drops;
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    /**
+     * 一个日志段的内存索引（玩家UUID -> 记录偏移），从索引文件增量加载：
+     * 当天的日志段仍在追加时，每次查询只读取新增的索引项。
+     */
+    private static final class SegmentIndex {
+        private final File file;
+        // 已读取的索引文件长度
+        private long loaded;
+        private final Map<UUID, Offsets> offsets = new HashMap<>();
+
+        SegmentIndex(File file) {
+            this.file = file;
+        }
+
+        synchronized long[] lookup(UUID playerId) throws IOException {
+            refresh();
+            Offsets playerOffsets = offsets.get(playerId);
+            return playerOffsets == null ? new long[0] : Arrays.copyOf(playerOffsets.values, playerOffsets.size);
+        }
+
+        // 读取索引文件中新增的完整索引项
+        private void refresh() throws IOException {
+            if (!file.exists()) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                long size = channel.size() - channel.size() % INDEX_ENTRY_SIZE;
+                if (size < loaded) {
+                    // 索引被重建过
+                    offsets.clear();
+                    loaded = 0;
+                }
+                if (size == loaded) {
+                    return;
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, loaded, size - loaded);
+                while (buffer.remaining() >= INDEX_ENTRY_SIZE) {
+                    UUID playerId = new UUID(buffer.getLong(), buffer.getLong());
+                    offsets.computeIfAbsent(playerId, id -> new Offsets()).add(buffer.getLong());
+                }
+                loaded = size;
+            }
+        }
+    }
+
+    /**
+     * 一天的掉落物倒排索引（掉落物名称 -> 获得过的玩家UUID）。
+     * 文件格式：重复的 [UTF 掉落物名称, long UUID高位, long UUID低位]
+     */
+    private static final class DayDrops {
+        private final Map<String, Set<UUID>> players = new HashMap<>();
+
+        // 添加一项，返回是否是新的（掉落物, 玩家）
+        synchronized boolean add(String itemName, UUID playerId) {
+            return players.computeIfAbsent(itemName, name -> new HashSet<>()).add(playerId);
+        }
+
+        synchronized Set<UUID> players(String itemName) {
+            Set<UUID> result = players.get(itemName);
+            return result == null ? Collections.emptySet() : new HashSet<>(result);
+        }
+
+        synchronized boolean isEmpty() {
+            return players.isEmpty();
+        }
+
+        // 读取索引文件内容，返回完整记录的长度
+        long read(byte[] data) throws IOException {
+            ByteArrayInputStream bytes = new ByteArrayInputStream(data);
+            DataInputStream in = new DataInputStream(bytes);
+            long valid = 0;
+            try {
+                while (bytes.available() > 0) {
+                    String itemName = in.readUTF();
+                    UUID playerId = new UUID(in.readLong(), in.readLong());
+                    add(itemName, playerId);
+                    valid = data.length - bytes.available();
+                }
+            } catch (EOFException e) {
+                // 末尾记录不完整
+            }
+            return valid;
+        }
+
+        synchronized void writeAll(DataOutputStream out) throws IOException {
+            for (Map.Entry<String, Set<UUID>> drop : players.entrySet()) {
+                for (UUID playerId : drop.getValue()) {
+                    write(out, drop.getKey(), playerId);
+                }
+            }
+        }
+
+        static void write(DataOutputStream out, String itemName, UUID playerId) throws IOException {
+            out.writeUTF(itemName);
+            out.writeLong(playerId.getMostSignificantBits());
+            out.writeLong(playerId.getLeastSignificantBits());
+        }
+    }
+
+    // 可增长的 long 数组（避免装箱）
+    private static final class Offsets {
+        long[] values = new long[4];
+        int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.chengju.customdrops.stats;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 掉落统计：按（来源, 掉落物, 世界, 小时）计数。
+ * <p>
+ * 计数器使用 {@link LongAdder}，发放掉落时只做一次累加，不涉及磁盘 I/O；
+ * 查询直接汇总内存中的计数器，不需要扫描日志。计数定期异步保存到 stats.dat，启动时读回。
+ */
+public class DropStatistics {
+
+    // 快照文件头 "CDST"
+    private static final int MAGIC = 0x43445354;
+    private static final int VERSION = 1;
+    private static final long HOUR_MILLIS = 3600000L;
+
+    private final File file;
+    private final Map<StatKey, LongAdder> counters = new ConcurrentHashMap<>();
+
+    public DropStatistics(File file) {
+        this.file = file;
+    }
+
+    /**
+     * 记录一次掉落（可在任意线程调用）
+     * @param source 来源
+     * @param dropName 掉落物名称
+     * @param world 世界名
+     * @param timestamp 发放时间（毫秒时间戳）
+     */
+    public void record(String source, String dropName, String world, long timestamp) {
+        this.counters.computeIfAbsent(new StatKey(source, dropName, world, timestamp / HOUR_MILLIS),
+                key -> new LongAdder()).increment();
+    }
+
+    /**
+     * 汇总最近若干小时内的掉落次数
+     * @param dropName 只统计该掉落物，为 null 时统计全部
+     * @param hours 小时数（包含当前小时）
+     */
+    public Summary query(String dropName, int hours) {
+        long fromHour = System.currentTimeMillis() / HOUR_MILLIS - hours + 1;
+        Summary summary = new Summary();
+        for (Map.Entry<StatKey, LongAdder> counter : this.counters.entrySet()) {
+            StatKey key = counter.getKey();
+            if (key.hour < fromHour || (dropName != null && !key.dropName.equals(dropName))) {
+                continue;
+            }
+            long count = counter.getValue().sum();
+            summary.total += count;
+            summary.byDrop.merge(key.dropName, count, Long::sum);
+            summary.bySource.merge(key.source, count, Long::sum);
+            summary.byWorld.merge(key.world, count, Long::sum);
+        }
+        return summary;
+    }
+
+    /**
+     * 读取快照（启动时调用），读取的计数累加到当前计数上
+     */
+    public void load() throws IOException {
+        if (!this.file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("不是有效的统计文件: " + this.file.getName());
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                StatKey key = new StatKey(in.readUTF(), in.readUTF(), in.readUTF(), in.readLong());
+                long count = in.readLong();
+                this.counters.computeIfAbsent(key, k -> new LongAdder()).add(count);
+            }
+        }
+    }
+
+    /**
+     * 清除过期计数并保存快照（先写临时文件再替换，可在异步任务中调用，多次调用串行执行）
+     * @param retentionHours 保留的小时数，更早的计数被清除
+     */
+    public synchronized void save(int retentionHours) throws IOException {
+        long oldestHour = System.currentTimeMillis() / HOUR_MILLIS - retentionHours;
+        this.counters.keySet().removeIf(key -> key.hour < oldestHour);
+
+        // 先取出一份一致的副本，计数继续在主线程累加
+        Map<StatKey, Long> snapshot = new HashMap<>();
+        for (Map.Entry<StatKey, LongAdder> counter : this.counters.entrySet()) {
+            snapshot.put(counter.getKey(), counter.getValue().sum());
+        }
+
+        File dir = this.file.getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("无法创建目录: " + dir.getAbsolutePath());
+        }
+        File temp = new File(dir, this.file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<StatKey, Long> counter : snapshot.entrySet()) {
+                StatKey key = counter.getKey();
+                out.writeUTF(key.source);
+                out.writeUTF(key.dropName);
+                out.writeUTF(key.world);
+                out.writeLong(key.hour);
+                out.writeLong(counter.getValue());
+            }
+        }
+        Files.move(temp.toPath(), this.file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 统计汇总结果
+     */
+    public static final class Summary {
+        public long total;
+        // 掉落物 / 来源 / 世界 -> 次数
+        public final Map<String, Long> byDrop = new HashMap<>();
+        public final Map<String, Long> bySource = new HashMap<>();
+        public final Map<String, Long> byWorld = new HashMap<>();
+    }
+
+    // 计数器的键（来源, 掉落物, 世界, 小时）
+    private static final class StatKey {
+        final String source;
+        final String dropName;
+        final String world;
+        // 自1970年起的小时数
+        final long hour;
+        private final int hash;
+
+        StatKey(String source, String dropName, String world, long hour) {
+            this.source = source;
+            this.dropName = dropName;
+            this.world = world;
+            this.hour = hour;
+            this.hash = Objects.hash(source, dropName, world, hour);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StatKey)) {
+                return false;
+            }
+            StatKey other = (StatKey) o;
+            return this.hour == other.hour && this.source.equals(other.source)
+                    && this.dropName.equals(other.dropName) && this.world.equals(other.world);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
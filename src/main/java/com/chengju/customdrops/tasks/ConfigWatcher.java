@@ -0,0 +1,148 @@
+package com.chengju.customdrops.tasks;
+
+import com.chengju.customdrops.ConfigManager;
+import com.chengju.customdrops.CustomDropsPlugin;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 配置文件监视器。
+ * 监听数据目录中 config.yml 的写入，合并短时间内的连续写入后，
+ * 仅在文件内容确实发生变化时回到主线程执行重载。
+ * 重载未能开始（如已有重载正在进行）时，每隔一个等待时间重试，直到这次变化被重载。
+ */
+public class ConfigWatcher implements Runnable {
+    private static final String CONFIG_FILE = "config.yml";
+
+    private final CustomDropsPlugin plugin;
+    private final Path configFile;
+    // 最后一次写入后需要保持安静的时间（毫秒）
+    private final long delay;
+    // 内容变化后在主线程执行的重载逻辑，返回重载是否已开始
+    private final BooleanSupplier onChange;
+
+    private WatchService watchService;
+    // 已开始重载的文件内容摘要（重载开始后在主线程更新）
+    private volatile String lastHash;
+    // 是否有已提交到主线程、尚未执行的重载
+    private volatile boolean dispatching;
+    // 是否有尚未重载的变化（只在监视线程中访问）
+    private boolean retry;
+
+    public ConfigWatcher(CustomDropsPlugin plugin, long delay, BooleanSupplier onChange) {
+        this.plugin = plugin;
+        this.configFile = plugin.getDataFolder().toPath().resolve(CONFIG_FILE);
+        this.delay = delay;
+        this.onChange = onChange;
+    }
+
+    public long getDelay() {
+        return this.delay;
+    }
+
+    // 注册目录监听并启动监视线程
+    public void start() throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.configFile.getParent().register(this.watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.lastHash = hashConfig();
+
+        Thread thread = new Thread(this, "CustomDrops-ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // 停止监视（关闭 WatchService 会唤醒阻塞中的监视线程）
+    public void stop() {
+        try {
+            this.watchService.close();
+        } catch (IOException e) {
+            this.plugin.getLogger().warning("关闭配置文件监视器失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                // 有尚未重载的变化时定期重新检查，否则等待新的事件
+                WatchKey key = this.retry
+                        ? this.watchService.poll(this.delay, TimeUnit.MILLISECONDS)
+                        : this.watchService.take();
+                if (key != null) {
+                    if (!drain(key) && !this.retry) {
+                        continue;
+                    }
+                    // 合并连续写入：直到一段时间内没有新的事件
+                    WatchKey next;
+                    while ((next = this.watchService.poll(this.delay, TimeUnit.MILLISECONDS)) != null) {
+                        drain(next);
+                    }
+                }
+                if (this.dispatching) {
+                    continue;
+                }
+
+                // 只是被触碰而内容未变时不重载
+                String hash = hashConfig();
+                if (hash == null) {
+                    continue;
+                }
+                if (hash.equals(this.lastHash)) {
+                    this.retry = false;
+                    continue;
+                }
+                if (!this.plugin.isEnabled()) {
+                    return;
+                }
+                // 只有重载确实开始后才记录摘要，未能开始时下一轮重试
+                this.retry = true;
+                this.dispatching = true;
+                this.plugin.getServer().getScheduler().runTask(this.plugin, () -> {
+                    try {
+                        if (this.onChange.getAsBoolean()) {
+                            this.lastHash = hash;
+                        }
+                    } finally {
+                        this.dispatching = false;
+                    }
+                });
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // 监视器已停止
+        }
+    }
+
+    // 处理一批事件，返回其中是否包含 config.yml 的变化
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            // 事件溢出时无法确定具体文件，按已变化处理
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || CONFIG_FILE.equals(String.valueOf(event.context()))) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    // 计算配置文件内容摘要，读取失败（如编辑器正在替换文件）时返回 null
+    private String hashConfig() {
+        try {
+            return ConfigManager.sha256(Files.readAllBytes(this.configFile));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -1,55 +1,24 @@
-//
-// Source code recreated from a .class file by IntelliJ IDEA
-// (powered by FernFlower decompiler)
-//
-
 package com.chengju.customdrops.tasks;
 
 import com.chengju.customdrops.CustomDropsPlugin;
-import java.io.File;
-import java.util.Calendar;
-import java.util.Date;
+import com.chengju.customdrops.PluginConfiguration;
 import org.bukkit.scheduler.BukkitRunnable;
 
+/**
+ * 日志分层保留任务（异步执行）：
+ * 最近 compress-after-days 天的日志保持原样，更早的按天压缩为归档，超过 retention-days 天的删除。
+ * 只根据按日期命名的文件和目录判断，不逐个读取文件的修改时间。
+ */
 public class LogCleanupTask extends BukkitRunnable {
     private final CustomDropsPlugin plugin;
-    private final int retentionDays;
 
     public LogCleanupTask(CustomDropsPlugin plugin) {
         this.plugin = plugin;
-        this.retentionDays = plugin.getConfig().getInt("log-retention-days", 30);
     }
 
     public void run() {
-        if (this.retentionDays > 0) {
-            File logDir = new File(this.plugin.getDataFolder(), "player_log");
-            if (logDir.exists()) {
-                Calendar calendar = Calendar.getInstance();
-                calendar.add(5, -this.retentionDays);
-                Date cutoffDate = calendar.getTime();
-                this.cleanupDirectory(logDir, cutoffDate);
-            }
-        }
-    }
-
-    private void cleanupDirectory(File dir, Date cutoffDate) {
-        File[] files = dir.listFiles();
-        if (files != null) {
-            File[] var4 = files;
-            int var5 = files.length;
-
-            for(int var6 = 0; var6 < var5; ++var6) {
-                File file = var4[var6];
-                if (file.isDirectory()) {
-                    this.cleanupDirectory(file, cutoffDate);
-                    if (file.listFiles() == null || file.listFiles().length == 0) {
-                        file.delete();
-                    }
-                } else if (file.lastModified() < cutoffDate.getTime()) {
-                    file.delete();
-                }
-            }
-
-        }
+        // 每次执行时读取当前配置，重载后的保留天数在下一次清理时生效
+        PluginConfiguration.LogConfig config = this.plugin.getConfigManager().getCurrentConfig().getLogs();
+        this.plugin.getLogManager().applyRetention(config.compressAfterDays, config.retentionDays);
     }
 }
@@ -0,0 +1,31 @@
+package com.chengju.customdrops.tasks;
+
+import com.chengju.customdrops.CustomDropsPlugin;
+import com.chengju.customdrops.PluginConfiguration;
+import com.chengju.customdrops.stats.DropStatistics;
+import java.io.IOException;
+import org.bukkit.scheduler.BukkitRunnable;
+
+/**
+ * 定期保存掉落统计快照（异步执行）
+ */
+public class StatsSnapshotTask extends BukkitRunnable {
+    private final CustomDropsPlugin plugin;
+    private final DropStatistics statistics;
+    // 统计保留的小时数（创建任务时从配置中读取）
+    private final int retentionHours;
+
+    public StatsSnapshotTask(CustomDropsPlugin plugin, DropStatistics statistics, PluginConfiguration.StatsConfig config) {
+        this.plugin = plugin;
+        this.statistics = statistics;
+        this.retentionHours = config.retentionHours;
+    }
+
+    public void run() {
+        try {
+            this.statistics.save(this.retentionHours);
+        } catch (IOException e) {
+            this.plugin.getLogger().warning("保存掉落统计失败: " + e.getMessage());
+        }
+    }
+}
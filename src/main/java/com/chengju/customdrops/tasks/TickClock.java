@@ -0,0 +1,29 @@
+package com.chengju.customdrops.tasks;
+
+import org.bukkit.scheduler.BukkitRunnable;
+
+/**
+ * 服务器刻时钟：每刻（主线程）加一，用于冷却计时。
+ * 读取只是一次字段访问，比 System.currentTimeMillis 便宜；同一刻内的事件看到相同的时间，
+ * 服务器卡顿时冷却按实际经过的刻数计算，与游戏进度保持一致。
+ */
+public class TickClock extends BukkitRunnable {
+    // 每刻的毫秒数（20刻/秒）
+    public static final long MILLIS_PER_TICK = 50L;
+
+    private volatile long tick;
+
+    public void run() {
+        this.tick++;
+    }
+
+    // 当前刻数（时钟启动后单调递增）
+    public long now() {
+        return this.tick;
+    }
+
+    // 毫秒换算为刻数（向上取整）
+    public static long toTicks(long millis) {
+        return (millis + MILLIS_PER_TICK - 1) / MILLIS_PER_TICK;
+    }
+}